@@ -0,0 +1,307 @@
+package citrea.swarm4j.core.callback;
+
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener wrapper dispatching operations to the inner listener on the given executor,
+ * so a slow listener (e.g. one writing to a database) doesn't block the Host thread.
+ * Operations are buffered in a bounded per-listener queue; when the queue is full
+ * the overflow policy decides what to lose. Operations taking more than the slow
+ * threshold to handle are reported (logged and passed to the SlowListenerHandler),
+ * the one still in progress is checked every time a new operation arrives, so a listener
+ * blocked forever is reported too.
+ *
+ * The order of operations of every object is kept (operations of different objects may be
+ * reordered by KEEP_LATEST and COALESCE), the inner listener is never invoked concurrently.
+ * Operation values are immutable, so they are passed to the other thread as is.
+ *
+ * Usage: <code>obj.on(filter, new AsyncOpRecipient(listener, executor, 1000, OverflowPolicy.COALESCE))</code>
+ */
+public class AsyncOpRecipient extends FilteringOpRecipient<OpRecipient> implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncOpRecipient.class);
+
+    /**
+     * max number of operations handled by a single executor task
+     */
+    private static final int BATCH_SIZE = 64;
+
+    public enum OverflowPolicy {
+        /** the new operation is dropped */
+        DROP_NEWEST,
+        /** the oldest queued operation is dropped */
+        DROP_OLDEST,
+        /**
+         * the newest queued operation of the same object is replaced by the new one if it is of the same
+         * type, so only the latest one is kept (for operations carrying the whole state); the oldest is dropped otherwise
+         */
+        KEEP_LATEST,
+        /**
+         * the newest queued operation of the same object is merged with the new one if it is of the same
+         * type: values (json objects, e.g. <code>Model.set</code> fields) are combined, fields of the new one win,
+         * the merged operation has the spec of the new one; the oldest is dropped otherwise
+         */
+        COALESCE
+    }
+
+    public interface SlowListenerHandler {
+        /**
+         * Called once per slow operation: by the dispatching thread once the operation is handled,
+         * or by the thread delivering a new operation while the slow one is still in progress.
+         * @param latencyMillis time the operation has been handled for
+         */
+        void onSlowListener(AsyncOpRecipient recipient, FullSpec spec, long latencyMillis);
+    }
+
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy policy;
+
+    // guarded by queue
+    private final Deque<Pending> queue = new ArrayDeque<Pending>();
+    private boolean scheduled = false;
+
+    private volatile long slowThresholdNanos = Long.MAX_VALUE;
+    private volatile SlowListenerHandler slowListenerHandler = null;
+    /**
+     * operation being handled by the inner listener
+     */
+    private volatile Pending inFlight = null;
+
+    private final AtomicLong delivered = new AtomicLong(0L);
+    private final AtomicLong dropped = new AtomicLong(0L);
+    private final AtomicLong coalesced = new AtomicLong(0L);
+    private final AtomicLong slow = new AtomicLong(0L);
+
+    public AsyncOpRecipient(OpRecipient inner, Executor executor, int capacity, OverflowPolicy policy) {
+        super(inner);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity should be positive");
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * @param thresholdMillis operations handled longer are reported
+     * @param handler receives reports (may be null: slow operations are logged anyway)
+     */
+    public void setSlowThreshold(long thresholdMillis, SlowListenerHandler handler) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.slowListenerHandler = handler;
+    }
+
+    @Override
+    protected boolean filter(FullSpec spec, JsonValue value, OpRecipient source) {
+        return true;
+    }
+
+    @Override
+    protected void deliverInternal(FullSpec spec, JsonValue value, OpRecipient source) {
+        this.checkInFlight();
+        Pending op = new Pending(spec, value, source);
+        synchronized (queue) {
+            if (queue.size() >= capacity && !this.makeRoom(op)) {
+                return;
+            }
+            queue.offer(op);
+            if (scheduled) return;
+            scheduled = true;
+        }
+        this.schedule();
+    }
+
+    /**
+     * Applies the overflow policy to the full queue
+     * @return false if the new operation is to be dropped
+     */
+    private boolean makeRoom(Pending op) {
+        switch (policy) {
+            case DROP_NEWEST:
+                this.dropped(op);
+                return false;
+            case KEEP_LATEST:
+            case COALESCE:
+                // the newest queued operation of the object (if it is of the same type) is replaced,
+                // so the object's operations stay in order
+                Iterator<Pending> it = queue.descendingIterator();
+                while (it.hasNext()) {
+                    Pending queued = it.next();
+                    if (!queued.spec.getTypeId().equals(op.spec.getTypeId())) {
+                        continue;
+                    }
+                    if (queued.spec.getOp().equals(op.spec.getOp()) &&
+                            (policy == OverflowPolicy.KEEP_LATEST || isMergeable(queued.value, op.value))) {
+                        it.remove();
+                        if (policy == OverflowPolicy.COALESCE) {
+                            op.value = merge(queued.value.asObject(), op.value.asObject());
+                        }
+                        coalesced.incrementAndGet();
+                        return true;
+                    }
+                    break;
+                }
+                // nothing to coalesce with
+                this.dropped(queue.poll());
+                return true;
+            case DROP_OLDEST:
+            default:
+                this.dropped(queue.poll());
+                return true;
+        }
+    }
+
+    private static boolean isMergeable(JsonValue queued, JsonValue value) {
+        return queued != null && queued.isObject() && value != null && value.isObject();
+    }
+
+    /**
+     * @return fields of both values, the newer value fields win
+     */
+    private static JsonValue merge(JsonObject older, JsonObject newer) {
+        ImmutableJsonObject res = ImmutableJsonObject.freeze(older);
+        for (JsonObject.Member member : newer) {
+            res = res.with(member.getName(), member.getValue());
+        }
+        return res;
+    }
+
+    private void dropped(Pending op) {
+        if (dropped.incrementAndGet() == 1) {
+            logger.warn("{} queue is full (capacity {}), dropping operations", this, capacity);
+        }
+        logger.debug("{} dropped: {}", this, op.spec);
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            logger.warn("{} dispatch rejected, dropping queued operations", this, e);
+            synchronized (queue) {
+                dropped.addAndGet(queue.size());
+                queue.clear();
+                scheduled = false;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Pending op;
+            synchronized (queue) {
+                op = queue.poll();
+                if (op == null) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            this.dispatch(op);
+        }
+        // let other tasks of the executor run
+        this.schedule();
+    }
+
+    private void dispatch(Pending op) {
+        op.startedAt = System.nanoTime();
+        inFlight = op;
+        try {
+            inner.deliver(op.spec, op.value, op.source);
+        } catch (Exception ex) {
+            logger.warn("{}.dispatch({}) exception: ", this, op.spec, ex);
+        } finally {
+            inFlight = null;
+        }
+        delivered.incrementAndGet();
+        long latency = System.nanoTime() - op.startedAt;
+        if (latency > slowThresholdNanos) {
+            this.reportSlow(op, latency, "took");
+        }
+    }
+
+    /**
+     * Reports the operation in progress if it is handled longer than the slow threshold already
+     */
+    private void checkInFlight() {
+        Pending op = inFlight;
+        if (op == null || slowThresholdNanos == Long.MAX_VALUE) return;
+
+        long latency = System.nanoTime() - op.startedAt;
+        if (latency > slowThresholdNanos) {
+            this.reportSlow(op, latency, "is still in progress after");
+        }
+    }
+
+    private void reportSlow(Pending op, long latency, String state) {
+        synchronized (op) {
+            if (op.reported) return;
+            op.reported = true;
+        }
+        slow.incrementAndGet();
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(latency);
+        logger.warn("{} slow listener: {} {} {}ms", this, op.spec, state, latencyMillis);
+        SlowListenerHandler handler = slowListenerHandler;
+        if (handler != null) {
+            handler.onSlowListener(this, op.spec, latencyMillis);
+        }
+    }
+
+    public int getQueueSize() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getSlowCount() {
+        return slow.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncOpRecipient{" +
+                "inner=" + inner +
+                ", policy=" + policy +
+                '}';
+    }
+
+    private static final class Pending {
+        final FullSpec spec;
+        JsonValue value;
+        final OpRecipient source;
+        volatile long startedAt;
+        // guarded by this
+        boolean reported = false;
+
+        Pending(FullSpec spec, JsonValue value, OpRecipient source) {
+            this.spec = spec;
+            this.value = value;
+            this.source = source;
+        }
+    }
+}
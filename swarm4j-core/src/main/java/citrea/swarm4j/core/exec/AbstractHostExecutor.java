@@ -0,0 +1,72 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.Host;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.queue.WatermarkOpQueue;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Base class for executors processing operations in several threads.
+ *
+ * Host-level operations touch every replica the host has, so they are
+ * processed exclusively: object operations are processed holding a read
+ * lock and Host operations are processed holding the write lock.
+ */
+public abstract class AbstractHostExecutor implements HostExecutor {
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ReadWriteLock hostLock = new ReentrantReadWriteLock();
+    private OpRecipient target;
+    private volatile boolean running = false;
+
+    @Override
+    public final synchronized void start(String name, OpRecipient target) {
+        if (running) {
+            throw new IllegalStateException("Can't start executor more than once");
+        }
+        this.target = target;
+        this.startInternal(name);
+        this.running = true;
+    }
+
+    protected abstract void startInternal(String name);
+
+    protected final boolean isRunning() {
+        return running;
+    }
+
+    protected static boolean isHostOperation(TypeIdSpec target) {
+        return Host.HOST.equals(target.getType());
+    }
+
+    /**
+     * @return lock to be held while processing operation for the target object
+     */
+    protected final Lock lockFor(TypeIdSpec target) {
+        return isHostOperation(target) ? hostLock.writeLock() : hostLock.readLock();
+    }
+
+    /**
+     * Delivers dequeued operation to the target (the caller must hold corresponding lock).
+     */
+    protected final void process(QueuedOperation op) {
+        if (!WatermarkOpQueue.isProcessingThread()) {
+            WatermarkOpQueue.markProcessingThread();
+        }
+        try {
+            target.deliver(op.getSpec(), op.getValue(), op.getPeer());
+        } catch (SwarmException e) {
+            //TODO fatal exception
+            logger.warn("Error processing operation: {}", op, e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+
+/**
+ * Strategy of asynchronous operations processing for a Host.
+ *
+ * Implementations must guarantee that operations addressed to the same
+ * object (same type-id specifier) are processed in order they were submitted,
+ * one at a time, and that Host-level operations ("/Host#id...") are never
+ * processed concurrently with any other operation.
+ *
+ * @see citrea.swarm4j.core.model.Host#setExecutor(HostExecutor)
+ */
+public interface HostExecutor {
+
+    /**
+     * Starts processing threads.
+     * @param name name used as a prefix for processing threads names
+     * @param target recipient to process dequeued operations with (normally, the Host itself)
+     */
+    void start(String name, OpRecipient target);
+
+    void stop();
+
+    /**
+     * @param target type-id specifier of the object operation addressed to
+     * @return true if an operation for the target object may be processed right
+     *         in the calling thread (executor is not started yet or the calling thread
+     *         is the one processing operations for the target); false – operation must be submitted
+     */
+    boolean isProcessingThread(TypeIdSpec target);
+
+    void submit(QueuedOperation op) throws InterruptedException;
+}
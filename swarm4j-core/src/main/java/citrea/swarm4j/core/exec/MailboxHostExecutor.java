@@ -0,0 +1,207 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Gives every object its own mailbox. A mailbox is drained by a carrier thread
+ * only while it has pending operations, so one slow operation on a hot object
+ * doesn't stall delivery to other objects, and idle objects cost no thread.
+ * Mailbox is dropped as soon as it becomes empty.
+ *
+ * Carrier threads are taken from the pool created by the executor or from
+ * the supplied <code>ExecutorService</code> (e.g. virtual-thread-per-task
+ * executor on a JVM supporting it).
+ *
+ * Operations of a single object are processed one at a time in the order
+ * they were submitted. Host-level operations are processed exclusively
+ * (see AbstractHostExecutor).
+ */
+public class MailboxHostExecutor extends AbstractHostExecutor {
+
+    /**
+     * max number of operations processed by a carrier before switching to other mailbox
+     */
+    public static final int DEFAULT_THROUGHPUT = 32;
+
+    private final ConcurrentMap<TypeIdSpec, Mailbox> mailboxes = new ConcurrentHashMap<TypeIdSpec, Mailbox>();
+    private final ThreadLocal<Mailbox> current = new ThreadLocal<Mailbox>();
+    private final int carrierThreads;
+    private final boolean ownCarrier;
+    private ExecutorService carrier;
+    private int throughput = DEFAULT_THROUGHPUT;
+
+    /**
+     * @param carrierThreads number of threads in the carrier pool
+     */
+    public MailboxHostExecutor(int carrierThreads) {
+        if (carrierThreads < 1) {
+            throw new IllegalArgumentException("carrierThreads must be positive");
+        }
+        this.carrierThreads = carrierThreads;
+        this.ownCarrier = true;
+    }
+
+    /**
+     * @param carrier executor to drain mailboxes with (is not shut down on stop())
+     */
+    public MailboxHostExecutor(ExecutorService carrier) {
+        if (carrier == null) {
+            throw new IllegalArgumentException("carrier can not be null");
+        }
+        this.carrierThreads = 0;
+        this.ownCarrier = false;
+        this.carrier = carrier;
+    }
+
+    /**
+     * Must not be used after start()
+     * @param throughput max number of operations processed at once by a carrier thread
+     */
+    public void setThroughput(int throughput) {
+        if (throughput < 1) {
+            throw new IllegalArgumentException("throughput must be positive");
+        }
+        this.throughput = throughput;
+    }
+
+    /**
+     * @return number of mailboxes having pending operations
+     */
+    public int getActiveMailboxesCount() {
+        return mailboxes.size();
+    }
+
+    @Override
+    protected void startInternal(final String name) {
+        if (ownCarrier) {
+            carrier = Executors.newFixedThreadPool(carrierThreads, new ThreadFactory() {
+                private final AtomicInteger seq = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, name + "-mailbox" + seq.getAndIncrement());
+                }
+            });
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (ownCarrier && carrier != null) {
+            carrier.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isProcessingThread(TypeIdSpec target) {
+        if (!isRunning()) {
+            return true;
+        }
+        Mailbox mailbox = current.get();
+        return mailbox != null && mailbox.target.equals(target);
+    }
+
+    @Override
+    public void submit(QueuedOperation op) throws InterruptedException {
+        TypeIdSpec target = op.getSpec().getTypeId();
+        try {
+            while (true) {
+                Mailbox mailbox = mailboxes.get(target);
+                if (mailbox == null) {
+                    Mailbox created = new Mailbox(target);
+                    mailbox = mailboxes.putIfAbsent(target, created);
+                    if (mailbox == null) {
+                        mailbox = created;
+                    }
+                }
+                if (mailbox.put(op)) {
+                    return;
+                }
+                // mailbox was dropped concurrently, retry with a fresh one
+            }
+        } catch (RejectedExecutionException e) {
+            logger.warn("Executor stopped, operation dropped: {}", op);
+        }
+    }
+
+    private final class Mailbox implements Runnable {
+
+        final TypeIdSpec target;
+        private final Lock lock;
+        private final Queue<QueuedOperation> ops = new LinkedList<QueuedOperation>();
+        private boolean scheduled = false;
+        private boolean dropped = false;
+
+        Mailbox(TypeIdSpec target) {
+            this.target = target;
+            this.lock = lockFor(target);
+        }
+
+        /**
+         * @return false if mailbox is already dropped and can't accept operations
+         */
+        synchronized boolean put(QueuedOperation op) {
+            if (dropped) {
+                return false;
+            }
+            ops.add(op);
+            if (!scheduled) {
+                scheduled = true;
+                carrier.execute(this);
+            }
+            return true;
+        }
+
+        private synchronized QueuedOperation poll() {
+            return ops.poll();
+        }
+
+        @Override
+        public void run() {
+            current.set(this);
+            lock.lock();
+            try {
+                for (int i = 0; i < throughput; i++) {
+                    QueuedOperation op = poll();
+                    if (op == null) break;
+
+                    try {
+                        process(op);
+                    } catch (RuntimeException e) {
+                        // mailbox must stay alive
+                        logger.error("Error processing operation: {}", op, e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+                current.remove();
+            }
+
+            synchronized (this) {
+                if (ops.isEmpty()) {
+                    dropped = true;
+                    mailboxes.remove(target, this);
+                } else {
+                    // let other mailboxes go
+                    try {
+                        carrier.execute(this);
+                    } catch (RejectedExecutionException e) {
+                        logger.warn("{}: executor stopped, {} operations dropped", target, ops.size());
+                    }
+                }
+            }
+        }
+    }
+}
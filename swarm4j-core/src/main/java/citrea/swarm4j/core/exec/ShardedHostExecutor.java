@@ -0,0 +1,122 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Routes operations to a fixed number of worker threads (shards) by hash
+ * of the target object type-id specifier. All the operations of an object
+ * are processed by the same shard (so their order is kept), while independent
+ * objects are processed in parallel.
+ *
+ * Host-level operations (handshakes, addSource/removeSource) go to a separate
+ * lane which processes them exclusively (see AbstractHostExecutor).
+ */
+public class ShardedHostExecutor extends AbstractHostExecutor {
+
+    private final Lane hostLane;
+    private final Lane[] shards;
+
+    /**
+     * @param shardsCount number of worker threads processing non-Host operations
+     */
+    public ShardedHostExecutor(int shardsCount) {
+        if (shardsCount < 1) {
+            throw new IllegalArgumentException("shardsCount must be positive");
+        }
+        this.hostLane = new Lane();
+        this.shards = new Lane[shardsCount];
+        for (int i = 0; i < shardsCount; i++) {
+            this.shards[i] = new Lane();
+        }
+    }
+
+    public int getShardsCount() {
+        return shards.length;
+    }
+
+    @Override
+    protected void startInternal(String name) {
+        hostLane.start(name + "-host");
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].start(name + "-shard" + i);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        hostLane.stop();
+        for (Lane shard : shards) {
+            shard.stop();
+        }
+    }
+
+    @Override
+    public boolean isProcessingThread(TypeIdSpec target) {
+        return !isRunning() || laneFor(target).thread == Thread.currentThread();
+    }
+
+    @Override
+    public void submit(QueuedOperation op) throws InterruptedException {
+        laneFor(op.getSpec().getTypeId()).queue.put(op);
+    }
+
+    int shardOf(TypeIdSpec target) {
+        int h = target.hashCode();
+        // spread higher bits (same as HashMap does)
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return (h & Integer.MAX_VALUE) % shards.length;
+    }
+
+    private Lane laneFor(TypeIdSpec target) {
+        if (isHostOperation(target)) {
+            return hostLane;
+        }
+        return shards[shardOf(target)];
+    }
+
+    /**
+     * Single worker thread with its own queue
+     */
+    private final class Lane implements Runnable {
+
+        final BlockingQueue<QueuedOperation> queue = new LinkedBlockingQueue<QueuedOperation>();
+        volatile Thread thread;
+
+        void start(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.start();
+        }
+
+        void stop() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            logger.info("started");
+            try {
+                while (!thread.isInterrupted()) {
+                    QueuedOperation op = queue.take();
+                    Lock lock = lockFor(op.getSpec().getTypeId());
+                    lock.lockInterruptibly();
+                    try {
+                        process(op);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            logger.info("finished");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * Contains execution strategies for operations queued by a Host.
+ * By default a Host processes all the operations in a single thread,
+ * an executor allows to spread that work among several threads
+ * while keeping per-object operations order.
+ *
+ * @see citrea.swarm4j.core.model.Host
+ * @see citrea.swarm4j.core.exec.HostExecutor
+ */
+package citrea.swarm4j.core.exec;
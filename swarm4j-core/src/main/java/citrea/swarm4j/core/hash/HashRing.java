@@ -0,0 +1,246 @@
+package citrea.swarm4j.core.hash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable consistent-hashing ring: every node is placed on the ring
+ * <code>virtualNodes * weight</code> times (at hash("nodeId:i") points); a key belongs
+ * to the node owning the first point clockwise from the key's hash.
+ * Lookup is O(log(nodes * virtualNodes)); the ring has to be rebuilt once the set
+ * of nodes changes.
+ * Hashes are additionally mixed (murmur3 finalizer), so simple hash functions
+ * (which map similar strings to close values) still spread points evenly.
+ */
+public final class HashRing<T> {
+
+    private final HashFunction hashFn;
+    private final int virtualNodes;
+    private final int[] points;
+    private final Object[] owners;
+    private final int[] pointNodes;
+    private final String[] nodeIds;
+    private final Object[] nodeOwners;
+    private final int[] nodeWeights;
+    private final int totalWeight;
+    private final Map<Object, Integer> nodeIndex = new IdentityHashMap<Object, Integer>();
+
+    /**
+     * @param nodes nodes by their ids
+     * @param hashFn hash function to place nodes and keys on the ring with
+     * @param virtualNodes number of points per node
+     */
+    public HashRing(Map<String, ? extends T> nodes, HashFunction hashFn, int virtualNodes) {
+        this(nodes, null, hashFn, virtualNodes);
+    }
+
+    /**
+     * @param nodes nodes by their ids
+     * @param weights weights (capacities) of nodes by their ids, absent or non-positive weight means 1
+     * @param hashFn hash function to place nodes and keys on the ring with
+     * @param virtualNodes number of points per unit of weight
+     */
+    public HashRing(Map<String, ? extends T> nodes, Map<String, Integer> weights, HashFunction hashFn, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes should be positive");
+        }
+        this.hashFn = hashFn;
+        this.virtualNodes = virtualNodes;
+
+        this.nodeIds = new String[nodes.size()];
+        this.nodeOwners = new Object[nodes.size()];
+        this.nodeWeights = new int[nodes.size()];
+        int size = 0;
+        int total = 0;
+        int n = 0;
+        for (Map.Entry<String, ? extends T> node : nodes.entrySet()) {
+            Integer weight = weights == null ? null : weights.get(node.getKey());
+            nodeIds[n] = node.getKey();
+            nodeOwners[n] = node.getValue();
+            nodeWeights[n] = weight == null || weight < 1 ? 1 : weight;
+            nodeIndex.put(node.getValue(), n);
+            size += nodeWeights[n] * virtualNodes;
+            total += nodeWeights[n];
+            n++;
+        }
+        this.totalWeight = total;
+
+        // sort (point, node) pairs by point
+        long[] packed = new long[size];
+        int i = 0;
+        for (n = 0; n < nodeIds.length; n++) {
+            for (int v = 0, l = nodeWeights[n] * virtualNodes; v < l; v++) {
+                int point = mix(hashFn.calc(nodeIds[n] + ":" + v));
+                packed[i++] = ((long) point << 32) | n;
+            }
+        }
+        Arrays.sort(packed);
+
+        this.points = new int[size];
+        this.owners = new Object[size];
+        this.pointNodes = new int[size];
+        for (i = 0; i < size; i++) {
+            this.points[i] = (int) (packed[i] >> 32);
+            this.pointNodes[i] = (int) packed[i];
+            this.owners[i] = nodeOwners[this.pointNodes[i]];
+        }
+    }
+
+    /**
+     * @return the node the key belongs to (null if the ring is empty)
+     */
+    public T get(String key) {
+        return getByHash(hashFn.calc(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getByHash(int hash) {
+        if (points.length == 0) {
+            return null;
+        }
+        return (T) owners[indexOf(mix(hash))];
+    }
+
+    /**
+     * Walks the ring clockwise from the key's hash and returns the first node accepted by the filter.
+     * @return accepted node or the node the key belongs to (if no node accepted)
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String key, Filter<? super T> filter) {
+        if (points.length == 0) {
+            return null;
+        }
+        int start = indexOf(mix(hashFn.calc(key)));
+        for (int i = 0; i < points.length; i++) {
+            T node = (T) owners[(start + i) % points.length];
+            if (filter.accept(node)) {
+                return node;
+            }
+        }
+        return (T) owners[start];
+    }
+
+    /**
+     * @return position of the key on the ring (see getArcs())
+     */
+    public int positionOf(String key) {
+        return positionOf(hashFn, key);
+    }
+
+    /**
+     * @return position of the key on any ring using the hash function
+     */
+    public static int positionOf(HashFunction hashFn, String key) {
+        return mix(hashFn.calc(key));
+    }
+
+    /**
+     * Arcs of the ring owned by the node: keys positioned in (from, to] belong to it.
+     * E.g. once a node is added only keys in its arcs change their owner.
+     * @return {from, to} position pairs (the arc wraps around if from >= to), empty if the node is unknown
+     */
+    public List<int[]> getArcs(String nodeId) {
+        List<int[]> res = new ArrayList<int[]>();
+        int n = Arrays.asList(nodeIds).indexOf(nodeId);
+        if (n < 0) {
+            return res;
+        }
+        for (int i = 0; i < points.length; i++) {
+            if (pointNodes[i] != n) continue;
+
+            if (i > 0 && pointNodes[i - 1] == n) {
+                // continues the previous arc of the node
+                res.get(res.size() - 1)[1] = points[i];
+                continue;
+            }
+            res.add(new int[] {points[i == 0 ? points.length - 1 : i - 1], points[i]});
+        }
+        return res;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * @return index of the first point clockwise from the hash
+     */
+    private int indexOf(int hash) {
+        int idx = Arrays.binarySearch(points, hash);
+        if (idx < 0) {
+            // insertion point: first point greater than the hash
+            idx = -idx - 1;
+            if (idx == points.length) {
+                idx = 0;
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * @return number of nodes on the ring
+     */
+    public int getNodesCount() {
+        return nodeIds.length;
+    }
+
+    public String getNodeId(int n) {
+        return nodeIds[n];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getNode(int n) {
+        return (T) nodeOwners[n];
+    }
+
+    public int getNodeWeight(int n) {
+        return nodeWeights[n];
+    }
+
+    /**
+     * @return weight of the node, 0 if the node is not on the ring
+     */
+    public int getNodeWeight(T node) {
+        Integer n = nodeIndex.get(node);
+        return n == null ? 0 : nodeWeights[n];
+    }
+
+    /**
+     * @return true if the node is on the ring
+     */
+    public boolean contains(T node) {
+        return nodeIndex.containsKey(node);
+    }
+
+    /**
+     * @return sum of all the nodes' weights
+     */
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    public boolean isEmpty() {
+        return points.length == 0;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public HashFunction getHashFunction() {
+        return hashFn;
+    }
+
+    public interface Filter<T> {
+
+        boolean accept(T node);
+    }
+}
@@ -11,7 +11,7 @@ import java.nio.charset.Charset;
  */
 public class MurMurHash3 implements HashFunction {
     private static final Charset UTF8 = Charset.forName("UTF8");
-    private MurMurHash3() {}
+    public MurMurHash3() {}
 
     /** Returns the MurmurHash3_x86_32 hash. */
     @Override
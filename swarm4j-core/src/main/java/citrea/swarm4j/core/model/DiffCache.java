@@ -0,0 +1,88 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
+import com.eclipsesource.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small LRU cache of recent diff() results of an object keyed by the normalized
+ * base version vector. Cached diffs are unmodifiable and shared by all the
+ * subscribers; their JSON representation is produced once (on the first request).
+ * The cache is to be cleared every time the object's state changes.
+ */
+class DiffCache {
+
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final LinkedHashMap<String, Cached> entries;
+    private long hits = 0L;
+    private long misses = 0L;
+
+    DiffCache(final int capacity) {
+        this.entries = new LinkedHashMap<String, Cached>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized JsonObject get(String base) {
+        Cached entry = entries.get(base);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.diff;
+    }
+
+    /**
+     * @return unmodifiable diff to be returned instead of the given one
+     */
+    synchronized JsonObject put(String base, JsonObject diff) {
+        JsonObject res = ImmutableJsonObject.freeze(diff);
+        entries.put(base, new Cached(res));
+        return res;
+    }
+
+    /**
+     * @return JSON representation of the cached diff or null if the diff is not (or no more) cached
+     */
+    synchronized String serialized(Object diff) {
+        for (Cached entry : entries.values()) {
+            if (entry.diff == diff) {
+                if (entry.json == null) {
+                    entry.json = entry.diff.toString();
+                }
+                return entry.json;
+            }
+        }
+        return null;
+    }
+
+    synchronized void clear() {
+        if (!entries.isEmpty()) {
+            entries.clear();
+        }
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    private static final class Cached {
+        final JsonObject diff;
+        String json;
+
+        Cached(JsonObject diff) {
+            this.diff = diff;
+        }
+    }
+}
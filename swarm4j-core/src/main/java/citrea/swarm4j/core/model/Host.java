@@ -8,23 +8,42 @@ import citrea.swarm4j.core.model.annotation.SwarmOperation;
 import citrea.swarm4j.core.model.annotation.SwarmOperationKind;
 import citrea.swarm4j.core.clocks.Clock;
 import citrea.swarm4j.core.clocks.SecondPreciseClock;
+import citrea.swarm4j.core.exec.HostExecutor;
 import citrea.swarm4j.core.hash.HashFunction;
+import citrea.swarm4j.core.hash.HashRing;
 import citrea.swarm4j.core.hash.SimpleHash;
 import citrea.swarm4j.core.meta.TypeMeta;
 import citrea.swarm4j.core.pipe.*;
 import citrea.swarm4j.core.meta.reflection.ReflectionTypeMeta;
 import citrea.swarm4j.core.model.annotation.SwarmType;
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
 import citrea.swarm4j.core.model.value.JSONUtils;
+import citrea.swarm4j.core.storage.HotObject;
+import citrea.swarm4j.core.storage.HotObjectsStore;
 import citrea.swarm4j.core.storage.StorageAdaptor;
+import citrea.swarm4j.core.queue.FairOpQueue;
+import citrea.swarm4j.core.queue.LinkedOpQueue;
+import citrea.swarm4j.core.queue.OpQueue;
+import citrea.swarm4j.core.queue.WatermarkOpQueue;
 import citrea.swarm4j.core.spec.*;
 import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.JsonValue;
 
 import java.net.URI;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Host is (practically) a user session, and (formally) a partial replica of a dataset.
@@ -45,9 +64,39 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class Host extends Syncable implements HostPeer, Runnable {
     public static final TypeToken HOST = new TypeToken("/Host");
     public static final String SERVER_HOST_ID_PREFIX = "swarm~";
-    private final Map<SToken, TypeMeta> knownTypes = new HashMap<SToken, TypeMeta>();
+    public static final int DEFAULT_HASH_POINTS = 3;
+    /**
+     * how often housekeeping thread looks for objects to evict (milliseconds)
+     */
+    public static final long EVICTION_INTERVAL = 1000L;
+    /**
+     * how often housekeeping thread saves hot objects list (milliseconds)
+     */
+    public static final long HOT_OBJECTS_SAVE_INTERVAL = 60000L;
+    private final Map<SToken, TypeMeta> knownTypes = new ConcurrentHashMap<SToken, TypeMeta>();
+
+    /**
+     * default max number of operations taken from the queue at once
+     */
+    public static final int DRAIN_LIMIT = 256;
 
-    private final BlockingQueue<QueuedOperation> queue = new LinkedBlockingQueue<QueuedOperation>();
+    private OpQueue queue = new LinkedOpQueue();
+    /**
+     * inbound traffic limiter (decorates the queue), null – unlimited
+     */
+    private WatermarkOpQueue watermarks = null;
+    /**
+     * operations taken from the queue (reused by run() loop)
+     */
+    private QueuedOperation[] batch = null;
+    private int batchLength = 0;
+    private int batchSize = DRAIN_LIMIT;
+    private final OpQueue.Handler batchCollector = new OpQueue.Handler() {
+        @Override
+        public void handle(QueuedOperation op) {
+            batch[batchLength++].set(op.getSpec(), op.getValue(), op.getPeer());
+        }
+    };
     private final CountDownLatch started = new CountDownLatch(1);
     private Thread queueThread;
 
@@ -59,7 +108,11 @@ public class Host extends Syncable implements HostPeer, Runnable {
     /**
      * data replicas are in memory
      */
-    final Map<TypeIdSpec, Syncable> objects = new HashMap<TypeIdSpec, Syncable>();
+    final ConcurrentMap<TypeIdSpec, Syncable> objects = new ConcurrentHashMap<TypeIdSpec, Syncable>();
+    /**
+     * replicas subscribed through connected peers
+     */
+    final SubscriptionIndex subscriptions = new SubscriptionIndex();
 
     /**
      * the storage to work with (to save/restore objects' states and op-log)
@@ -82,11 +135,71 @@ public class Host extends Syncable implements HostPeer, Runnable {
     /**
      * hash-function used for consistent hashing
      */
-    private final HashFunction hashFn = new SimpleHash();
+    private HashFunction hashFn = new SimpleHash();
+    /**
+     * number of points (virtual nodes) every server has on the consistent hashing ring
+     */
+    private int hashPoints = DEFAULT_HASH_POINTS;
+    /**
+     * consistent hashing ring of server hosts (rebuilt once sources change)
+     */
+    private volatile HashRing<Uplink> ring;
+    /**
+     * resident replicas by their ring positions (to find replicas a new server takes over)
+     */
+    private final RingIndex ringIndex = new RingIndex(this.hashFn);
+    /**
+     * weights (capacities) of server hosts by their ids, 1 by default
+     */
+    private final Map<String, Integer> serverWeights = new ConcurrentHashMap<String, Integer>();
+    /**
+     * bounded-load consistent hashing: server can't have more than (1 + loadBound) * average
+     * (weighted) subscriptions; 0 – unbounded
+     */
+    private volatile double loadBound = 0d;
+    /**
+     * total number of subscriptions through the servers on the ring (bounded-load capacities
+     * are derived from it), maintained on every subscription change
+     */
+    private final AtomicInteger ringLoad = new AtomicInteger(0);
+    /**
+     * objects not accessed for this time are evicted, 0 – never
+     */
+    private volatile long maxIdleTime = 0L;
+    /**
+     * max number of resident objects (least recently used are evicted), 0 – unlimited
+     */
+    private volatile int maxObjects = 0;
+    private final AtomicLong evictedCount = new AtomicLong(0L);
+    /**
+     * hot objects are saved there and preloaded on start, null – disabled
+     */
+    private HotObjectsStore hotObjectsStore = null;
+    private int warmupSize = 0;
+    private boolean warmupSnapshots = false;
+    private volatile int preloadedCount = 0;
+    /**
+     * preloads hot objects on start (see setWarmup())
+     */
+    private Thread preloadThread = null;
+    /**
+     * hot objects list is not saved until preloading completes (would be overwritten by a partial one)
+     */
+    private volatile boolean preloadCompleted = true;
+    private final ThreadLocal<Boolean> detachedCreation = new ThreadLocal<Boolean>();
     /**
      * when true – host has it's own Thread for operations processing
      */
     private boolean async = false;
+    /**
+     * when not null – operations are processed by the executor instead of host's own thread
+     */
+    private HostExecutor executor = null;
+    /**
+     * runs eviction and hot objects saving periodically (in any execution mode)
+     */
+    private ScheduledExecutorService housekeeper = null;
+    private volatile boolean running = false;
 
     /**
      * Creates new Host instance with specified id and storage.
@@ -103,6 +216,7 @@ public class Host extends Syncable implements HostPeer, Runnable {
             this.storageAdaptor = storageAdaptor;
             this.sources.put(this.getTypeId(), storageAdaptor);
         }
+        this.rebuildRing();
     }
 
     /**
@@ -125,6 +239,480 @@ public class Host extends Syncable implements HostPeer, Runnable {
         this.async = async;
     }
 
+    /**
+     * Setup executor to process operations with (e.g. several threads).
+     * Must not be used after host.start() invocation.
+     * Host with executor is always asynchronous.
+     * @param executor operations executor; null – use host's own thread (see setAsync())
+     * @see citrea.swarm4j.core.exec.ShardedHostExecutor
+     */
+    public void setExecutor(HostExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Setup hash function used to place servers and objects on the consistent hashing ring.
+     * All the servers of a cluster (and their clients) must use the same settings.
+     * Must not be used after host.start() invocation.
+     * @param hashFn hash function (e.g. SimpleHash or MurMurHash3)
+     */
+    public void setHashFunction(HashFunction hashFn) {
+        if (hashFn == null) {
+            throw new IllegalArgumentException("hashFn can not be null");
+        }
+        this.checkNotStarted();
+        this.hashFn = hashFn;
+        this.rebuildRing();
+        this.ringIndex.rebuild(hashFn, this.objects.values());
+    }
+
+    /**
+     * Setup number of points (virtual nodes) every server has on the consistent hashing ring.
+     * More points give more even distribution of objects among servers.
+     * Must not be used after host.start() invocation.
+     * @param hashPoints number of points per server (default 3)
+     */
+    public void setHashPoints(int hashPoints) {
+        if (hashPoints < 1) {
+            throw new IllegalArgumentException("hashPoints should be positive");
+        }
+        this.checkNotStarted();
+        this.hashPoints = hashPoints;
+        this.rebuildRing();
+    }
+
+    /**
+     * Setup weight (capacity) of the server host: server with weight 2 gets twice more
+     * points on the consistent hashing ring (and so twice more objects) than the one with weight 1.
+     * Must not be used after host.start() invocation (weights of servers connecting later
+     * have to be set in advance).
+     * @param serverId id of the server host
+     * @param weight server weight (default 1)
+     */
+    public void setServerWeight(IdToken serverId, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight should be positive");
+        }
+        this.checkNotStarted();
+        this.serverWeights.put(serverId.getBody(), weight);
+        this.rebuildRing();
+    }
+
+    /**
+     * The ring is rebuilt by the thread processing Host operations once started,
+     * so its settings are fixed by then.
+     */
+    private void checkNotStarted() {
+        if (this.running) {
+            throw new IllegalStateException("Can't change consistent hashing settings of the running host");
+        }
+    }
+
+    /**
+     * Enables bounded-load consistent hashing: a server having more than
+     * (1 + epsilon) * average (weighted) active subscriptions gets no new objects,
+     * those are spilled to the next server on the ring. Objects already subscribed
+     * through the server stay.
+     * @param epsilon allowed overload (e.g. 0.25), 0 – disables load bounding
+     */
+    public void setLoadBound(double epsilon) {
+        if (epsilon < 0) {
+            throw new IllegalArgumentException("epsilon should not be negative");
+        }
+        this.loadBound = epsilon;
+    }
+
+    /**
+     * Enables eviction of objects nobody listens to. Evicted objects are closed
+     * (unsubscribed from uplinks and storage) and transparently loaded again
+     * on next access (host.get() or incoming operation).
+     * Eviction is performed by host's housekeeping thread every EVICTION_INTERVAL
+     * (whether the host is busy or idle), evictIdle() may be called to evict immediately.
+     * Note: application code should not keep references to objects it doesn't listen to.
+     * @param maxIdleMillis objects not accessed for this time are evicted, 0 – never
+     * @param maxObjects max number of resident objects (least recently used are evicted), 0 – unlimited
+     */
+    public void setEviction(long maxIdleMillis, int maxObjects) {
+        if (maxIdleMillis < 0 || maxObjects < 0) {
+            throw new IllegalArgumentException("non-negative values expected");
+        }
+        this.maxIdleTime = maxIdleMillis;
+        this.maxObjects = maxObjects;
+    }
+
+    /**
+     * Evicts idle objects (according to setEviction() settings).
+     * May be called by any thread: every object is evicted holding its lock,
+     * so it is never closed while it processes an operation; operations that looked it up
+     * before are delivered to the replica loaded again.
+     * @return number of evicted objects
+     */
+    public int evictIdle() throws SwarmException {
+        long maxIdleTime = this.maxIdleTime;
+        int maxObjects = this.maxObjects;
+        if (maxIdleTime == 0L && maxObjects == 0) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Syncable> candidates = new ArrayList<Syncable>();
+        for (Syncable obj : this.objects.values()) {
+            if (this.isEvictable(obj)) {
+                candidates.add(obj);
+            }
+        }
+
+        int evicted = 0;
+        if (maxIdleTime > 0L) {
+            Iterator<Syncable> it = candidates.iterator();
+            while (it.hasNext()) {
+                Syncable obj = it.next();
+                if (now - obj.lastAccessTime >= maxIdleTime) {
+                    it.remove();
+                    if (this.evict(obj, now - maxIdleTime)) {
+                        evicted++;
+                    }
+                }
+            }
+        }
+        if (maxObjects > 0 && this.getResidentCount() > maxObjects) {
+            // access times keep changing, so they are sorted as of now
+            List<Ranked> lru = new ArrayList<Ranked>(candidates.size());
+            for (Syncable obj : candidates) {
+                lru.add(new Ranked(obj, obj.lastAccessTime));
+            }
+            Collections.sort(lru);
+            for (int i = 0; i < lru.size() && this.getResidentCount() > maxObjects; i++) {
+                // objects accessed since the candidates were collected are kept
+                if (this.evict(lru.get(i).obj, now)) {
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("{}.evictIdle(): {} objects evicted", this, evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Object may be evicted if nobody listens to it and it can be loaded
+     * from the uplinks again (is subscribed to them).
+     */
+    private boolean isEvictable(Syncable obj) {
+        return obj != this && obj.listeners.isEmpty() && !obj.isNotUplinked();
+    }
+
+    /**
+     * @param accessedBefore object accessed after this time (concurrently) is kept
+     * @return false if the object has been accessed or listened concurrently
+     */
+    private boolean evict(Syncable obj, long accessedBefore) throws SwarmException {
+        synchronized (obj) {
+            if (obj.lastAccessTime > accessedBefore || !this.isEvictable(obj) || this.objects.get(obj.getTypeId()) != obj) {
+                return false;
+            }
+            logger.debug("{}.evict({})", this, obj);
+            obj.close();
+        }
+        this.evictedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Enables warm restart: the most frequently accessed objects are saved into the store
+     * (by housekeeping thread every HOT_OBJECTS_SAVE_INTERVAL and on stop()) and preloaded
+     * in background on the next start(). Must be called before start().
+     * @param store hot objects store
+     * @param size number of objects to save and preload
+     * @param snapshots true – save objects' states too, so preloaded objects have state
+     *                  before uplinks respond (the state is updated by uplinks afterwards)
+     */
+    public void setWarmup(HotObjectsStore store, int size, boolean snapshots) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size should be positive");
+        }
+        this.hotObjectsStore = store;
+        this.warmupSize = size;
+        this.warmupSnapshots = snapshots;
+    }
+
+    /**
+     * Saves the most frequently accessed objects into the hot objects store (see setWarmup()).
+     * Does nothing while hot objects are being preloaded (or if preloading has been interrupted).
+     * May be called by any thread.
+     */
+    public void saveHotObjects() throws SwarmException {
+        HotObjectsStore store = this.hotObjectsStore;
+        if (store == null) return;
+        if (!this.preloadCompleted) {
+            logger.debug("{}.saveHotObjects(): skipped, preloading is not completed", this);
+            return;
+        }
+
+        // access counts keep changing, so they are sorted as of now
+        List<Ranked> candidates = new ArrayList<Ranked>(this.objects.size());
+        for (Syncable obj : this.objects.values()) {
+            if (obj != this) {
+                candidates.add(new Ranked(obj, obj.accessCount.get()));
+            }
+        }
+        Collections.sort(candidates, Collections.reverseOrder());
+
+        List<HotObject> hot = new ArrayList<HotObject>(Math.min(this.warmupSize, candidates.size()));
+        for (int i = 0; i < candidates.size() && hot.size() < this.warmupSize; i++) {
+            Syncable obj = candidates.get(i).obj;
+            JsonObject snapshot = null;
+            if (this.warmupSnapshots) {
+                synchronized (obj) {
+                    if (!obj.hasNoState()) {
+                        // the same form the state is transferred to other replicas in
+                        snapshot = obj.diff(VersionVectorSpec.ZERO_VERSION_VECTOR);
+                    }
+                }
+            }
+            hot.add(new HotObject(obj.getTypeId(), candidates.get(i).rank, snapshot));
+        }
+        store.write(hot);
+        logger.debug("{}.saveHotObjects(): {} objects saved", this, hot.size());
+    }
+
+    /**
+     * Creates replicas of saved hot objects (in order of access frequency)
+     */
+    private void preloadHotObjects() throws SwarmException {
+        List<HotObject> hot = new ArrayList<HotObject>(this.hotObjectsStore.read());
+        Collections.sort(hot, new Comparator<HotObject>() {
+            @Override
+            public int compare(HotObject o1, HotObject o2) {
+                return o1.getAccessCount() > o2.getAccessCount() ? -1 : (o1.getAccessCount() == o2.getAccessCount() ? 0 : 1);
+            }
+        });
+
+        // objects with snapshots are replayed in parallel, others are loaded from uplinks
+        Map<TypeIdSpec, JsonObject> snapshots = new LinkedHashMap<TypeIdSpec, JsonObject>();
+        for (int i = 0; i < hot.size() && i < this.warmupSize; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                logger.info("{}.preloadHotObjects(): interrupted", this);
+                return;
+            }
+            HotObject h = hot.get(i);
+            if (h.getSnapshot() != null) {
+                snapshots.put(h.getTypeId(), h.getSnapshot());
+                continue;
+            }
+            try {
+                Syncable obj = this.get(h.getTypeId());
+                obj.accessCount.set(h.getAccessCount());
+                this.preloadedCount++;
+            } catch (SwarmException e) {
+                logger.warn("{}.preloadHotObjects(): error preloading {}", this, h, e);
+            }
+        }
+        if (!snapshots.isEmpty()) {
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                this.preloadedCount += this.hydrate(snapshots, executor);
+            } finally {
+                executor.shutdown();
+            }
+        }
+        this.preloadCompleted = true;
+        logger.info("{}.preloadHotObjects(): {} objects preloaded", this, this.preloadedCount);
+    }
+
+    /**
+     * Creates replicas from the given states in bulk: states (and their log tails) are applied
+     * to detached replicas in parallel, then every replica is published into the registry
+     * completely initialized and subscribed to uplinks (which bring it up to date).
+     * States of replicas already registered are applied to them unless they have state.
+     * May be called by any thread.
+     * @param states states in the form replicas are initialized with (see Syncable.diff())
+     * @param executor executor to replay states with
+     * @return number of replicas created or initialized
+     */
+    public int hydrate(Map<TypeIdSpec, JsonObject> states, ExecutorService executor) throws SwarmException {
+        Map<TypeIdSpec, Future<Syncable>> replayed = new LinkedHashMap<TypeIdSpec, Future<Syncable>>();
+        for (final Map.Entry<TypeIdSpec, JsonObject> entry : states.entrySet()) {
+            if (this.objects.containsKey(entry.getKey())) continue;
+
+            replayed.put(entry.getKey(), executor.submit(new Callable<Syncable>() {
+                @Override
+                public Syncable call() throws Exception {
+                    Syncable obj = newDetachedInstance(entry.getKey());
+                    obj.deliver(obj.newEventSpec(INIT), entry.getValue(), Host.this);
+                    return obj;
+                }
+            }));
+        }
+
+        int res = 0;
+        for (Map.Entry<TypeIdSpec, JsonObject> entry : states.entrySet()) {
+            TypeIdSpec spec = entry.getKey();
+            Syncable obj = null;
+            Future<Syncable> future = replayed.get(spec);
+            if (future != null) {
+                try {
+                    obj = future.get();
+                } catch (InterruptedException e) {
+                    throw new SwarmException(e.getMessage(), e);
+                } catch (ExecutionException e) {
+                    logger.warn("{}.hydrate(): error replaying {}", this, spec, e.getCause());
+                    continue;
+                }
+            }
+
+            Syncable existing;
+            if (obj != null) {
+                // locked before it is published: host threads may get it and deliver to it at once
+                synchronized (obj) {
+                    existing = this.objects.putIfAbsent(spec, obj);
+                    if (existing == null) {
+                        this.ringIndex.add(obj);
+                        obj.checkUplink();
+                        res++;
+                        continue;
+                    }
+                }
+            } else {
+                existing = this.objects.get(spec);
+                if (existing == null) continue;
+            }
+            // created concurrently
+            synchronized (existing) {
+                if (!existing.hasNoState() || !this.isRegistered(existing)) continue;
+                existing.deliver(existing.newEventSpec(INIT), entry.getValue(), this);
+            }
+            res++;
+        }
+        logger.debug("{}.hydrate(): {} replicas hydrated", this, res);
+        return res;
+    }
+
+    /**
+     * Creates replica neither registered nor subscribed to uplinks
+     */
+    private Syncable newDetachedInstance(TypeIdSpec spec) throws SwarmException {
+        TypeMeta typeMeta = getTypeMeta(spec.getType());
+        detachedCreation.set(Boolean.TRUE);
+        try {
+            return typeMeta.newInstance(spec.getId(), this);
+        } finally {
+            detachedCreation.remove();
+        }
+    }
+
+    /**
+     * @return number of objects preloaded on start (see setWarmup())
+     */
+    public int getPreloadedCount() {
+        return this.preloadedCount;
+    }
+
+    /**
+     * @return false while hot objects are being preloaded (see setWarmup()) or if preloading has been interrupted
+     */
+    public boolean isPreloadCompleted() {
+        return this.preloadCompleted;
+    }
+
+    /**
+     * @return number of objects evicted since host creation
+     */
+    public long getEvictedCount() {
+        return this.evictedCount.get();
+    }
+
+    /**
+     * @return number of objects in memory (except the host itself)
+     */
+    public int getResidentCount() {
+        return this.objects.size() - 1;
+    }
+
+    /**
+     * Setup max number of operations taken from the queue and processed at once
+     * by host's own thread (see setAsync()). Consecutive operations addressed to the
+     * same object are applied to it as a group.
+     * Must not be used after host.start() invocation.
+     * @param batchSize max batch size (>= 1)
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize should be positive");
+        }
+        if (queueThread != null) {
+            throw new IllegalStateException("Can't change batch size of the running host");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Replaces operations queue of host's own thread (see setAsync()).
+     * Must not be used after host.start() invocation.
+     * @param queue operations queue
+     * @see citrea.swarm4j.core.queue.RingBufferOpQueue
+     * @see citrea.swarm4j.core.queue.PriorityOpQueue
+     */
+    public void setQueue(OpQueue queue) {
+        if (queueThread != null) {
+            throw new IllegalStateException("Can't change queue of the running host");
+        }
+        this.queue = queue;
+        this.watermarks = null;
+    }
+
+    /**
+     * Limits the number of operations waiting to be processed (in the queue of host's
+     * own thread or submitted to the executor): once it reaches highWatermark
+     * inbound pipes stop reading from their channels until it goes down to lowWatermark.
+     * Must be called after setQueue() (if any) and before host.start().
+     * @param highWatermark queue size to pause inbound pipes at
+     * @param lowWatermark queue size to resume inbound pipes at
+     * @see citrea.swarm4j.core.queue.WatermarkOpQueue
+     */
+    public void setWatermarks(int highWatermark, int lowWatermark) {
+        if (queueThread != null) {
+            throw new IllegalStateException("Can't change queue of the running host");
+        }
+        OpQueue inner = this.watermarks != null ? this.watermarks.getInner() : this.queue;
+        this.watermarks = new WatermarkOpQueue(inner, highWatermark, lowWatermark);
+        this.queue = this.watermarks;
+    }
+
+    @Override
+    public void waitForCapacity() throws InterruptedException {
+        if (this.watermarks != null) {
+            this.watermarks.awaitCapacity();
+        }
+    }
+
+    /**
+     * @return number of operations waiting in host's queue (or submitted to the executor
+     * if watermarks are set)
+     */
+    public int getQueueSize() {
+        return this.queue.size();
+    }
+
+    /**
+     * @return inbound traffic limiter (to read pause metrics), null if not configured
+     */
+    public WatermarkOpQueue getWatermarks() {
+        return this.watermarks;
+    }
+
+    /**
+     * @return per-connection queueing statistics if the queue is fair (see FairOpQueue), empty list otherwise
+     */
+    public List<FairOpQueue.SourceStats> getQueueStats() {
+        OpQueue queue = this.watermarks != null ? this.watermarks.getInner() : this.queue;
+        if (queue instanceof FairOpQueue) {
+            return ((FairOpQueue) queue).getSourceStats();
+        }
+        return Collections.emptyList();
+    }
+
     @Override
     public void checkUplink() throws SwarmException {
         //do nothing for host
@@ -141,14 +729,20 @@ public class Host extends Syncable implements HostPeer, Runnable {
     @Override
     public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
 
-        if (queueThread != null && queueThread != Thread.currentThread()) {
+        if (this.isQueueingRequired(spec)) {
             // queue
             try {
-                if (value != null && value.isObject()) {
-                    // value must be immutable, so prevent further modifications
-                    value = JsonObject.unmodifiableObject(value.asObject());
+                // value must be immutable, so prevent further modifications
+                // (frozen once, then passed as is)
+                value = ImmutableJsonObject.freeze(value);
+                if (this.executor != null) {
+                    if (this.watermarks != null) {
+                        this.watermarks.acquire();
+                    }
+                    this.executor.submit(new QueuedOperation(spec, value, source));
+                } else {
+                    queue.put(spec, value, source);
                 }
-                queue.put(new QueuedOperation(spec, value, source));
             } catch (InterruptedException e) {
                 throw new SwarmException(e.getMessage(), e);
             }
@@ -160,13 +754,21 @@ public class Host extends Syncable implements HostPeer, Runnable {
                 logger.debug("{} <= ({}, {}, {})", this, spec, value, source);
                 TypeIdSpec typeid = spec.getTypeId();
                 Syncable obj = this.get(typeid);
-                if (obj != null) {
-                    obj.deliver(spec, value, source);
+                // the replica may be evicted before it is locked, then it is looked up (reloaded) again
+                while (obj != null && !obj.deliverIfRegistered(spec, value, source)) {
+                    obj = this.get(typeid);
                 }
             }
         }
     }
 
+    private boolean isQueueingRequired(FullSpec spec) {
+        if (this.executor != null) {
+            return !this.executor.isProcessingThread(spec.getTypeId());
+        }
+        return queueThread != null && queueThread != Thread.currentThread();
+    }
+
     /**
      * Creates new instance of specified Syncable subclass
      *
@@ -200,10 +802,10 @@ public class Host extends Syncable implements HostPeer, Runnable {
      * @throws SwarmException
      */
     public <T extends Syncable> T get(TypeIdSpec spec) throws SwarmException {
-        T res;
-        //noinspection unchecked
-        res = (T) this.objects.get(spec);
+        @SuppressWarnings("unchecked") T res = (T) this.objects.get(spec);
         if (res != null) {
+            res.lastAccessTime = System.currentTimeMillis();
+            res.accessCount.incrementAndGet();
             return res;
         }
 
@@ -213,7 +815,37 @@ public class Host extends Syncable implements HostPeer, Runnable {
         }
 
         TypeMeta typeMeta = getTypeMeta(type);
-        return newInstance(typeMeta, spec.getId());
+        res = newInstance(typeMeta, spec.getId());
+        if (spec.getId() != null) {
+            // other thread may have registered its replica first
+            @SuppressWarnings("unchecked") T registered = (T) this.objects.get(res.getTypeId());
+            if (registered != null) {
+                res = registered;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets replica of Syncable object without blocking: the replica is created
+     * (or taken from the registry) immediately, the future completes once it has state.
+     * May be called by any thread.
+     * @param spec type-id specifier
+     * @param <T> Syncable subclass
+     * @return future completing with the replica
+     */
+    public <T extends Syncable> SyncableFuture<T> getAsync(TypeIdSpec spec) {
+        SyncableFuture<T> res = new SyncableFuture<T>();
+        try {
+            Syncable obj = this.get(spec);
+            // subscription is processed by host's thread (if any)
+            this.deliver(obj.newEventSpec(ON), JsonValue.valueOf(INIT.toString()), res);
+        } catch (SwarmException e) {
+            res.fail(e);
+        } catch (RuntimeException e) {
+            res.fail(e);
+        }
+        return res;
     }
 
     private <T extends Syncable> T newInstance(TypeMeta typeMeta, IdToken id) throws SwarmException {
@@ -238,12 +870,35 @@ public class Host extends Syncable implements HostPeer, Runnable {
         }
 
         this.sources.put(peer.getTypeId(), peer);
+        this.rebuildRing();
         if (ON.equals(spec.getOp())) {
-            peer.deliver(this.newEventSpec(REON), JsonValue.valueOf(this.clock.getTimeInMillis()), this); // TODO offset
+            long timeInMillis;
+            synchronized (this.clock) {
+                timeInMillis = this.clock.getTimeInMillis();
+            }
+            peer.deliver(this.newEventSpec(REON), JsonValue.valueOf(timeInMillis), this); // TODO offset
         }
 
-        for (Syncable obj: this.objects.values()) {
-            obj.checkUplink();
+        // only replicas whose preferred uplink has changed are resubscribed:
+        // the ones positioned in the ring arcs the server takes over
+        // (replicas spilled by bounded load stay where they are)
+        Set<Syncable> affected = new LinkedHashSet<Syncable>();
+        if (old != null) {
+            affected.addAll(this.subscriptions.objectsOf(old));
+        }
+        if (isServer(peer.getTypeId())) {
+            List<int[]> arcs = this.ring.getArcs(peer.getTypeId().getId().getBody());
+            for (Syncable obj : this.ringIndex.objectsIn(arcs)) {
+                if (this.getClosestUplink(obj.getTypeId()) == peer) {
+                    affected.add(obj);
+                }
+            }
+        }
+        for (Syncable obj : affected) {
+            // may be evicted concurrently (see evictIdle())
+            synchronized (obj) {
+                obj.checkUplink();
+            }
         }
 
         this.emit(spec, JsonValue.NULL, peer); // PEX hook
@@ -265,17 +920,19 @@ public class Host extends Syncable implements HostPeer, Runnable {
         }
         logger.debug("{}.removeSource({}, {})", this, spec, peer);
         this.sources.remove(peer.getTypeId());
-        for (Map.Entry<TypeIdSpec, Syncable> sp : this.objects.entrySet()) {
-            Syncable obj = sp.getValue();
+        this.rebuildRing();
+        // only replicas subscribed through the peer are affected
+        for (Syncable obj : this.subscriptions.objectsOf(peer)) {
             if (HOST.equals(obj.getType())) continue;
 
             obj.reoff(peer);
         }
+        this.subscriptions.forget(peer);
     }
 
     @Override
     protected String validate(FullSpec spec, JsonValue val) {
-        if (!HOST.equals(spec.getType()) && !this.clock.checkTimestamp(spec.getVersion())) {
+        if (!HOST.equals(spec.getType()) && !this.checkTimestamp(spec.getVersion())) {
             return "invalid timestamp " + spec;
         }
         return super.validate(spec, val);
@@ -339,7 +996,9 @@ public class Host extends Syncable implements HostPeer, Runnable {
         /// well.... TODO
         if (!(source instanceof Peer)) throw new IllegalArgumentException("src is not a Peer");
         if (!timeInMillis.isNumber()) throw new IllegalArgumentException("value must be numeric");
-        this.clock.adjustTime(timeInMillis.asLong());
+        synchronized (this.clock) {
+            this.clock.adjustTime(timeInMillis.asLong());
+        }
         this.addSource(spec, (Peer) source);
     }
 
@@ -350,7 +1009,7 @@ public class Host extends Syncable implements HostPeer, Runnable {
 
         FullSpec reoffSpec = new FullSpec(
                 ((Peer) src).getTypeId(),
-                this.clock.issueTimestamp(),
+                this.time(),
                 REOFF
         );
         src.deliver(reoffSpec, JsonValue.NULL, this);
@@ -364,8 +1023,20 @@ public class Host extends Syncable implements HostPeer, Runnable {
         this.removeSource(spec.getTypeId(), (Peer) source);
     }
 
+    /**
+     * Issues new timestamp; clock is shared by all the threads processing operations
+     * (and application threads), so access to it is serialized.
+     */
     public VersionToken time() {
-        return this.clock.issueTimestamp();
+        synchronized (this.clock) {
+            return this.clock.issueTimestamp();
+        }
+    }
+
+    private boolean checkTimestamp(VersionToken ts) {
+        synchronized (this.clock) {
+            return this.clock.checkTimestamp(ts);
+        }
     }
 
     /**
@@ -379,33 +1050,109 @@ public class Host extends Syncable implements HostPeer, Runnable {
      * @return list of currently available uplinks for specified object
      */
     public List<Uplink> getSources(TypeIdSpec spec) {
-
         List<Uplink> uplinks = new ArrayList<Uplink>();
-        int mindist = Integer.MAX_VALUE;
-        String target = spec.getId().getBody();
-        Uplink closestPeer = null;
+        if (!isServer(this.getTypeId()) && this.storageAdaptor != null) {
+            uplinks.add(this.storageAdaptor); // client-side cache
+        }
+        Uplink closestPeer = this.getClosestUplink(spec);
+        if (closestPeer != null) uplinks.add(0, closestPeer);
+        return uplinks;
+    }
 
-        String thisHostId = this.getId().getBody();
+    /**
+     * @param spec type-id specifier of some object
+     * @return the closest (in terms of consistent hashing) server peer or
+     * storage (if this host is a server and it is the closest one)
+     */
+    Uplink getClosestUplink(TypeIdSpec spec) {
+        final HashRing<Uplink> ring = this.ring;
+        final String target = spec.getId().getBody();
+        if (this.loadBound <= 0d || ring.getNodesCount() < 2) {
+            return ring.get(target);
+        }
 
-        if (thisHostId.startsWith(SERVER_HOST_ID_PREFIX)) {
-            mindist = this.hashDistance(thisHostId, target);
-            closestPeer = this.storageAdaptor;
-        } else if (this.storageAdaptor != null) {
-            uplinks.add(this.storageAdaptor); // client-side cache
+        // bounded load: skip overloaded servers (unless the object is already subscribed through)
+        final Syncable obj = this.objects.get(spec);
+        // capacity of a server is perWeight * weight
+        final double perWeight = (1d + this.loadBound) * (this.ringLoad.get() + 1) / ring.getTotalWeight();
+        return ring.get(target, new HashRing.Filter<Uplink>() {
+            @Override
+            public boolean accept(Uplink node) {
+                if (!(node instanceof Peer)) {
+                    return true;
+                }
+                Peer peer = (Peer) node;
+                if (obj != null && subscriptions.contains(peer, obj)) {
+                    return true;
+                }
+                return subscriptions.count(peer) < Math.ceil(perWeight * ring.getNodeWeight(node));
+            }
+        });
+    }
+
+    void subscriptionAdded(Peer peer, Syncable obj) {
+        if (this.subscriptions.add(peer, obj) && this.ring.contains(peer)) {
+            this.ringLoad.incrementAndGet();
         }
+    }
+
+    void subscriptionRemoved(Peer peer, Syncable obj) {
+        if (this.subscriptions.remove(peer, obj) && this.ring.contains(peer)) {
+            this.ringLoad.decrementAndGet();
+        }
+    }
+
+    private int getLoad(Uplink node) {
+        return node instanceof Peer ? this.subscriptions.count((Peer) node) : 0;
+    }
 
+    /**
+     * @return number of active subscriptions of every server on the consistent hashing ring
+     * (this host's own storage stands for this host if it is a server)
+     */
+    public Map<String, Integer> getServerLoads() {
+        HashRing<Uplink> ring = this.ring;
+        Map<String, Integer> res = new HashMap<String, Integer>();
+        for (int n = 0; n < ring.getNodesCount(); n++) {
+            res.put(ring.getNodeId(n), this.getLoad(ring.getNode(n)));
+        }
+        return res;
+    }
+
+    /**
+     * Places this host (if it is a server) and all the connected servers on the ring.
+     */
+    private void rebuildRing() {
+        Map<String, Uplink> servers = new HashMap<String, Uplink>();
+        String thisHostId = this.getId().getBody();
+        if (thisHostId.startsWith(SERVER_HOST_ID_PREFIX)) {
+            servers.put(thisHostId, this.storageAdaptor);
+        }
         for (Map.Entry<TypeIdSpec, Peer> entry : this.sources.entrySet()) {
             String id = entry.getKey().getId().getBody();
-            if (id.startsWith(SERVER_HOST_ID_PREFIX)) {
-                int dist = this.hashDistance(id, target);
-                if (dist < mindist) {
-                    closestPeer = entry.getValue();
-                    mindist = dist;
-                }
+            if (id.startsWith(SERVER_HOST_ID_PREFIX) && !id.equals(thisHostId)) {
+                servers.put(id, entry.getValue());
             }
         }
-        if (closestPeer != null) uplinks.add(0, closestPeer);
-        return uplinks;
+        HashRing<Uplink> ring = new HashRing<Uplink>(servers, this.serverWeights, this.hashFn, this.hashPoints);
+        int load = 0;
+        for (int n = 0; n < ring.getNodesCount(); n++) {
+            load += this.getLoad(ring.getNode(n));
+        }
+        this.ring = ring;
+        // recounted as the set of servers changes (corrects concurrent drift, if any)
+        this.ringLoad.set(load);
+    }
+
+    private static boolean isServer(TypeIdSpec peer) {
+        return peer != null && peer.getId().getBody().startsWith(SERVER_HOST_ID_PREFIX);
+    }
+
+    /**
+     * @return number of replicas subscribed through the peer (as uplink or as listener)
+     */
+    public int getSubscriptionsCount(Peer peer) {
+        return this.subscriptions.count(peer);
     }
 
     @Override
@@ -422,23 +1169,34 @@ public class Host extends Syncable implements HostPeer, Runnable {
      * Registers object replica.
      *
      * @param obj object replica to register
-     * @return registered object replica
+     * @return registered object replica (null for detached replicas, see hydrate())
      */
     public Syncable register(Syncable obj) {
+        if (detachedCreation.get() != null) {
+            // detached replica is published by hydrate()
+            return null;
+        }
         TypeIdSpec spec = obj.getTypeId();
-        Syncable res = this.objects.get(spec);
+        Syncable res = this.objects.putIfAbsent(spec, obj);
         if (res == null) {
-            this.objects.put(spec, obj);
             res = obj;
+            this.ringIndex.add(obj);
         }
         return res;
     }
 
+    /**
+     * @return true if the replica is the one registered for its type-id (not evicted, not closed)
+     */
+    boolean isRegistered(Syncable obj) {
+        return this.objects.get(obj.getTypeId()) == obj;
+    }
+
     public void unregister(Syncable obj) {
         TypeIdSpec spec = obj.getTypeId();
         // TODO unsubscribe from the uplink - swarm-scale gc
-        if (this.objects.containsKey(spec)) {
-            this.objects.remove(spec);
+        if (this.objects.remove(spec, obj)) {
+            this.ringIndex.remove(obj);
         }
     }
 
@@ -504,6 +1262,22 @@ public class Host extends Syncable implements HostPeer, Runnable {
         pipe.deliver(newEventSpec(ON), JsonValue.NULL, this);
     }
 
+    /**
+     * Streams all the resident replicas to a successor host (e.g. before stopping
+     * for a rolling restart). The channel should be connected to the successor,
+     * which accepts it as a regular connection (see accept()).
+     * @param successor connected channel to the successor host
+     * @return handoff progress
+     */
+    public StateHandoff handoff(OpChannel successor) throws SwarmException {
+        logger.info("{}.handoff({})", this, successor);
+        StateHandoff handoff = new StateHandoff(this);
+        Pipe pipe = new Pipe(handoff, plumber);
+        pipe.bindChannel(successor);
+        pipe.deliver(newEventSpec(ON), JsonValue.NULL, handoff);
+        return handoff;
+    }
+
     @Override
     public void disconnect(IdToken peerId) throws SwarmException {
         TypeIdSpec searchFor = new TypeIdSpec(HOST, peerId);
@@ -526,35 +1300,6 @@ public class Host extends Syncable implements HostPeer, Runnable {
         }
     }
 
-    int hashDistance(Object ipeer, Object obj) {
-        int obj_hash;
-        String peer;
-        if (obj instanceof Number) {
-            obj_hash = ((Number) obj).intValue();
-        } else if (obj instanceof SomeSyncable) {
-            obj_hash = hashFn.calc(((SomeSyncable) obj).getTypeId().getId().getBody());
-        } else {
-            obj_hash = hashFn.calc(obj.toString());
-        }
-
-        if (ipeer instanceof SomeSyncable) {
-            peer = ((SomeSyncable) ipeer).getId().getBody();
-        } else if (ipeer instanceof TypeIdSpec) {
-            peer = ((TypeIdSpec) ipeer).getId().getBody();
-        } else if (ipeer instanceof FullSpec) {
-            peer = ((FullSpec) ipeer).getId().getBody();
-        } else {
-            peer = ipeer.toString();
-        }
-
-        int dist = Integer.MAX_VALUE;
-        for (int i = 0; i < 3; i++) { //TODO 3 ~ HASH_POINTS
-            int hash = hashFn.calc(peer + ":" + i);
-            dist = Math.min(dist, hash ^ obj_hash);
-        }
-        return dist;
-    }
-
     @Override
     public void run() {
         synchronized (this) {
@@ -564,38 +1309,162 @@ public class Host extends Syncable implements HostPeer, Runnable {
             queueThread = Thread.currentThread();
         }
 
+        batch = new QueuedOperation[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = new QueuedOperation();
+        }
+
         logger.info("started");
         this.started.countDown();
         try {
             while (!queueThread.isInterrupted()) {
-                QueuedOperation op = queue.take();
-                if (op == null) continue;
+                batchLength = 0;
+                queue.drain(batchCollector, batchSize);
+                this.deliverBatch(batch, batchLength);
+            }
+        } catch (InterruptedException e) {
+            // ignore
+        }
 
+        logger.info("finished");
+    }
+
+    /**
+     * Schedules eviction and hot objects saving, so they don't depend on host's
+     * traffic and execution mode (own thread, executor or synchronous).
+     */
+    private void startHousekeeping() {
+        final String name = "H" + getPeerId().toString();
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread res = new Thread(r, name);
+                res.setDaemon(true);
+                return res;
+            }
+        });
+        this.housekeeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    this.deliver(op.getSpec(), op.getValue(), op.getPeer());
+                    Host.this.evictIdle();
                 } catch (SwarmException e) {
-                    //TODO fatal exception
-                    logger.warn("Error processing operation: {}", op, e);
+                    logger.warn("Error evicting idle objects", e);
+                } catch (RuntimeException e) {
+                    // keep the schedule
+                    logger.warn("Error evicting idle objects", e);
                 }
             }
-        } catch (InterruptedException e) {
-            // ignore
+        }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        if (this.hotObjectsStore != null) {
+            this.housekeeper.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Host.this.saveHotObjects();
+                    } catch (SwarmException e) {
+                        logger.warn("Error saving hot objects", e);
+                    } catch (RuntimeException e) {
+                        logger.warn("Error saving hot objects", e);
+                    }
+                }
+            }, HOT_OBJECTS_SAVE_INTERVAL, HOT_OBJECTS_SAVE_INTERVAL, TimeUnit.MILLISECONDS);
         }
+    }
 
-        logger.info("finished");
+    /**
+     * Processes operations taken from the queue. Consecutive operations addressed
+     * to the same object are handed to it at once (the object is looked up once per group).
+     * @param ops operations buffer (cleared after processing)
+     * @param length number of operations in buffer
+     */
+    private void deliverBatch(QueuedOperation[] ops, int length) {
+        int from = 0;
+        while (from < length) {
+            FullSpec spec = ops[from].getSpec();
+            TypeIdSpec typeid = spec.getTypeId();
+            int to = from + 1;
+            while (to < length && typeid.equals(ops[to].getSpec().getTypeId())) {
+                to++;
+            }
+
+            if (HOST.equals(spec.getType())) {
+                for (int i = from; i < to; i++) {
+                    QueuedOperation op = ops[i];
+                    try {
+                        super.deliver(op.getSpec(), op.getValue(), op.getPeer());
+                    } catch (SwarmException e) {
+                        //TODO fatal exception
+                        logger.warn("Error processing operation: {}", op, e);
+                    }
+                }
+            } else {
+                Syncable obj = this.lookup(typeid, ops[from], to - from);
+                // the replica may be evicted before it is locked, then it is looked up (reloaded) again
+                while (obj != null && !obj.deliverAll(ops, from, to)) {
+                    obj = this.lookup(typeid, ops[from], to - from);
+                }
+            }
+
+            for (int i = from; i < to; i++) {
+                ops[i].clear();
+            }
+            from = to;
+        }
+    }
+
+    private Syncable lookup(TypeIdSpec typeid, QueuedOperation first, int count) {
+        try {
+            return this.get(typeid);
+        } catch (SwarmException e) {
+            logger.warn("Error processing operations: {} (x{})", first, count, e);
+            return null;
+        }
     }
 
     public void start() throws SwarmException {
         logger.info("{}.start()", this);
+        this.running = true;
         if (this.storageAdaptor != null) {
             this.storageAdaptor.start();
         }
         this.plumber.start(getId());
-        if (this.async) {
+        if (this.executor != null) {
+            this.executor.start(getPeerId().toString(), this.watermarks == null ? this : new OpRecipient() {
+                @Override
+                public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+                    try {
+                        Host.this.deliver(spec, value, source);
+                    } finally {
+                        // submitted operation is processed
+                        watermarks.release(1);
+                    }
+                }
+            });
+            this.started.countDown();
+        } else if (this.async) {
             new Thread(this, getPeerId().toString()).start();
         } else {
             this.started.countDown();
         }
+        this.startHousekeeping();
+        if (this.hotObjectsStore != null) {
+            this.preloadCompleted = false;
+            this.preloadThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Host.this.waitForStart();
+                        Host.this.preloadHotObjects();
+                    } catch (InterruptedException e) {
+                        // ignore
+                    } catch (SwarmException e) {
+                        logger.warn("{}: error preloading hot objects", Host.this, e);
+                    }
+                }
+            }, "W" + getPeerId().toString());
+            this.preloadThread.start();
+        }
     }
 
     public void waitForStart() throws InterruptedException {
@@ -607,15 +1476,56 @@ public class Host extends Syncable implements HostPeer, Runnable {
 
     public void stop() throws SwarmException {
         logger.info("{}.stop()", this);
+        if (this.housekeeper != null) {
+            this.housekeeper.shutdownNow();
+        }
+        if (this.preloadThread != null) {
+            // the list is not saved unless preloading completes
+            this.preloadThread.interrupt();
+            try {
+                this.preloadThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            this.saveHotObjects();
+        } catch (SwarmException e) {
+            logger.warn("Error saving hot objects", e);
+        }
         synchronized (this) {
             if (queueThread != null) {
                 queueThread.interrupt();
             }
         }
+        if (this.executor != null) {
+            this.executor.stop();
+        }
+        if (this.watermarks != null) {
+            // nothing is going to drain the queue anymore
+            this.watermarks.close();
+        }
         if (this.storageAdaptor != null) {
             this.storageAdaptor.stop();
         }
         this.plumber.stop();
     }
 
+    /**
+     * Object with its rank (e.g. last access time) taken at the moment of ranking
+     */
+    private static final class Ranked implements Comparable<Ranked> {
+        final Syncable obj;
+        final long rank;
+
+        Ranked(Syncable obj, long rank) {
+            this.obj = obj;
+            this.rank = rank;
+        }
+
+        @Override
+        public int compareTo(Ranked other) {
+            return rank < other.rank ? -1 : (rank == other.rank ? 0 : 1);
+        }
+    }
 }
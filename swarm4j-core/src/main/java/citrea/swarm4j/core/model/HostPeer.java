@@ -28,4 +28,9 @@ public interface HostPeer extends Uplink, ReferringToPeer {
     void disconnect(IdToken peerId) throws SwarmException;
 
     void disconnect();
+
+    /**
+     * Blocks the calling thread (reading inbound channel) while the host is overloaded.
+     */
+    void waitForCapacity() throws InterruptedException;
 }
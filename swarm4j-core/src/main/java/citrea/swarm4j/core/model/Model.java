@@ -9,6 +9,7 @@ import citrea.swarm4j.core.model.annotation.SwarmOperationKind;
 import citrea.swarm4j.core.meta.FieldMeta;
 import citrea.swarm4j.core.model.oplog.ModelLogDistillator;
 import citrea.swarm4j.core.spec.*;
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
 import citrea.swarm4j.core.model.value.JSONUtils;
 import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.JsonValue;
@@ -137,7 +138,8 @@ public class Model extends Syncable {
         JsonObject pojo = this.getPOJO(false);
         for (String field : pojo.names()) {
             JsonValue currentFieldValue = this.getFieldValue(field);
-            if (!currentFieldValue.equals(cumul.get(field))) {
+            // logged values are frozen, and frozen values equal frozen ones only
+            if (!ImmutableJsonObject.freeze(currentFieldValue).equals(cumul.get(field))) {
                 // TODO nested
                 changes.set(field, currentFieldValue);
             }
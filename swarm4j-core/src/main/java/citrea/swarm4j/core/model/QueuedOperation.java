@@ -14,9 +14,9 @@ import com.eclipsesource.json.JsonValue;
  */
 public class QueuedOperation {
 
-    private final OpRecipient peer;
-    private final FullSpec spec;
-    private final JsonValue value;
+    private OpRecipient peer;
+    private FullSpec spec;
+    private JsonValue value;
 
     public QueuedOperation(FullSpec spec, JsonValue value, OpRecipient peer) {
         this.spec = spec;
@@ -24,6 +24,24 @@ public class QueuedOperation {
         this.peer = peer;
     }
 
+    /**
+     * Creates empty (reusable) slot
+     * @see citrea.swarm4j.core.queue.RingBufferOpQueue
+     */
+    public QueuedOperation() {
+        this(null, null, null);
+    }
+
+    public void set(FullSpec spec, JsonValue value, OpRecipient peer) {
+        this.spec = spec;
+        this.value = value;
+        this.peer = peer;
+    }
+
+    public void clear() {
+        set(null, null, null);
+    }
+
     public FullSpec getSpec() {
         return spec;
     }
@@ -38,6 +56,6 @@ public class QueuedOperation {
 
     @Override
     public String toString() {
-        return spec.toString() + "->" + value.toString();
+        return String.valueOf(spec) + "->" + String.valueOf(value);
     }
 }
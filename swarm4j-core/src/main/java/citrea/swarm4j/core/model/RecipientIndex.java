@@ -0,0 +1,126 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.callback.OpFilter;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.spec.SToken;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of an object's uplinks and listeners indexed by operation:
+ * op filters are put into the buckets of their operations, all the other
+ * recipients get every logged operation. Adding or removing a recipient
+ * produces a new snapshot copying the affected bucket only.
+ */
+final class RecipientIndex {
+
+    static final OpRecipient[] NONE = new OpRecipient[0];
+
+    /**
+     * recipients of all the logged operations
+     */
+    private final OpRecipient[] all;
+    /**
+     * op filters by their operations
+     */
+    private final Map<SToken, OpRecipient[]> byOp;
+
+    private RecipientIndex(OpRecipient[] all, Map<SToken, OpRecipient[]> byOp) {
+        this.all = all;
+        this.byOp = byOp;
+    }
+
+    static RecipientIndex build(List<? extends OpRecipient> uplinks, List<? extends OpRecipient> listeners) {
+        List<OpRecipient> all = new ArrayList<OpRecipient>(uplinks.size() + listeners.size());
+        Map<SToken, List<OpRecipient>> byOp = new HashMap<SToken, List<OpRecipient>>();
+        sort(uplinks, all, byOp);
+        sort(listeners, all, byOp);
+        Map<SToken, OpRecipient[]> index = new HashMap<SToken, OpRecipient[]>(byOp.size() * 2);
+        for (Map.Entry<SToken, List<OpRecipient>> entry : byOp.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().toArray(new OpRecipient[entry.getValue().size()]));
+        }
+        return new RecipientIndex(all.toArray(new OpRecipient[all.size()]), index);
+    }
+
+    private static void sort(List<? extends OpRecipient> recipients, List<OpRecipient> all, Map<SToken, List<OpRecipient>> byOp) {
+        for (OpRecipient r : recipients) {
+            if (r == null) continue;
+            if (r instanceof OpFilter) {
+                SToken op = ((OpFilter) r).getOp();
+                List<OpRecipient> bucket = byOp.get(op);
+                if (bucket == null) {
+                    bucket = new ArrayList<OpRecipient>(1);
+                    byOp.put(op, bucket);
+                }
+                bucket.add(r);
+            } else {
+                all.add(r);
+            }
+        }
+    }
+
+    /**
+     * @return recipients of every logged operation (don't modify)
+     */
+    OpRecipient[] getAll() {
+        return all;
+    }
+
+    /**
+     * @return op filters of the operation (don't modify)
+     */
+    OpRecipient[] getFiltered(SToken op) {
+        OpRecipient[] res = byOp.get(op);
+        return res == null ? NONE : res;
+    }
+
+    RecipientIndex with(OpRecipient recipient) {
+        if (recipient instanceof OpFilter) {
+            SToken op = ((OpFilter) recipient).getOp();
+            Map<SToken, OpRecipient[]> newByOp = new HashMap<SToken, OpRecipient[]>(byOp);
+            newByOp.put(op, append(getFiltered(op), recipient));
+            return new RecipientIndex(all, newByOp);
+        } else {
+            return new RecipientIndex(append(all, recipient), byOp);
+        }
+    }
+
+    RecipientIndex without(OpRecipient recipient) {
+        if (recipient instanceof OpFilter) {
+            SToken op = ((OpFilter) recipient).getOp();
+            OpRecipient[] bucket = remove(getFiltered(op), recipient);
+            Map<SToken, OpRecipient[]> newByOp = new HashMap<SToken, OpRecipient[]>(byOp);
+            if (bucket.length == 0) {
+                newByOp.remove(op);
+            } else {
+                newByOp.put(op, bucket);
+            }
+            return new RecipientIndex(all, newByOp);
+        } else {
+            return new RecipientIndex(remove(all, recipient), byOp);
+        }
+    }
+
+    private static OpRecipient[] append(OpRecipient[] arr, OpRecipient recipient) {
+        OpRecipient[] res = new OpRecipient[arr.length + 1];
+        System.arraycopy(arr, 0, res, 0, arr.length);
+        res[arr.length] = recipient;
+        return res;
+    }
+
+    private static OpRecipient[] remove(OpRecipient[] arr, OpRecipient recipient) {
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] == recipient) {
+                if (arr.length == 1) return NONE;
+                OpRecipient[] res = new OpRecipient[arr.length - 1];
+                System.arraycopy(arr, 0, res, 0, i);
+                System.arraycopy(arr, i + 1, res, i, arr.length - i - 1);
+                return res;
+            }
+        }
+        return arr;
+    }
+}
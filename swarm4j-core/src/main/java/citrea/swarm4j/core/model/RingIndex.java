@@ -0,0 +1,107 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.hash.HashFunction;
+import citrea.swarm4j.core.hash.HashRing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of resident replicas by their positions on the consistent hashing ring,
+ * lets Host visit only replicas in the arcs taken over by a newly connected server.
+ * Positions depend on the hash function, so the index is rebuilt once it changes.
+ */
+final class RingIndex {
+
+    private final ConcurrentSkipListMap<Key, Syncable> index = new ConcurrentSkipListMap<Key, Syncable>();
+    private volatile HashFunction hashFn;
+
+    RingIndex(HashFunction hashFn) {
+        this.hashFn = hashFn;
+    }
+
+    void add(Syncable obj) {
+        if (obj instanceof Host) return;
+
+        index.put(keyOf(hashFn, obj), obj);
+    }
+
+    void remove(Syncable obj) {
+        index.remove(keyOf(hashFn, obj), obj);
+    }
+
+    /**
+     * Places the replicas according to the (new) ring hash function
+     */
+    void rebuild(HashFunction hashFn, Iterable<Syncable> objects) {
+        this.hashFn = hashFn;
+        index.clear();
+        for (Syncable obj : objects) {
+            this.add(obj);
+        }
+    }
+
+    /**
+     * @param arcs {from, to} position pairs (see HashRing.getArcs())
+     * @return replicas positioned in (from, to] of any of the arcs
+     */
+    List<Syncable> objectsIn(List<int[]> arcs) {
+        List<Syncable> res = new ArrayList<Syncable>();
+        for (int[] arc : arcs) {
+            Key from = new Key(arc[0], null);
+            Key to = new Key(arc[1], null);
+            if (arc[0] < arc[1]) {
+                res.addAll(index.subMap(from, false, to, false).values());
+            } else {
+                // wraps around
+                res.addAll(index.tailMap(from, false).values());
+                res.addAll(index.headMap(to, false).values());
+            }
+        }
+        return res;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    private static Key keyOf(HashFunction hashFn, Syncable obj) {
+        // the same key objects are looked up on the ring with (see Host.getClosestUplink())
+        return new Key(HashRing.positionOf(hashFn, obj.getId().getBody()), obj.getTypeId().toString());
+    }
+
+    /**
+     * (position, type-id) pair, the key with null type-id follows all the keys at its position
+     */
+    private static final class Key implements Comparable<Key> {
+        final int position;
+        final String typeId;
+
+        Key(int position, String typeId) {
+            this.position = position;
+            this.typeId = typeId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (position != other.position) {
+                return position < other.position ? -1 : 1;
+            }
+            if (typeId == null) {
+                return other.typeId == null ? 0 : 1;
+            }
+            return other.typeId == null ? -1 : typeId.compareTo(other.typeId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * position + (typeId == null ? 0 : typeId.hashCode());
+        }
+    }
+}
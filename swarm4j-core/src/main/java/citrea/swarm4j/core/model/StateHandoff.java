@@ -0,0 +1,155 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.pipe.OpChannel;
+import citrea.swarm4j.core.pipe.UnsupportedProtocolException;
+import citrea.swarm4j.core.spec.*;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams all the resident replicas of a (stopping) host to a successor host,
+ * so the successor accepts clients with warm state (see Host.handoff()).
+ *
+ * Acts as the host's side of a regular pipe: once the successor answers the handshake,
+ * every replica having state is sent as ".init" with its compacted state (zero version
+ * plus distilled log, see Syncable.diff()), which the successor merges into its own replica
+ * (operations already known to it are ignored as replays). The pipe is closed afterwards,
+ * so the successor resubscribes its replicas to the remaining uplinks.
+ */
+public final class StateHandoff implements HostPeer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateHandoff.class);
+
+    private final Host host;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private OpRecipient successor;
+    private volatile int sentCount = 0;
+
+    StateHandoff(Host host) {
+        this.host = host;
+    }
+
+    /**
+     * Receives operations from the successor
+     */
+    @Override
+    public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+        if (!Host.HOST.equals(spec.getType())) {
+            // successor's replicas may subscribe to us, they will resubscribe once the pipe is closed
+            logger.debug("{}.deliver({}): ignored", this, spec);
+            return;
+        }
+        OpToken op = spec.getOp();
+        if (Syncable.ON.equals(op) || Syncable.REON.equals(op)) {
+            if (this.successor != null) return;
+
+            this.successor = source;
+            if (Syncable.ON.equals(op)) {
+                source.deliver(this.newEventSpec(Syncable.REON), JsonValue.valueOf(System.currentTimeMillis()), this);
+            }
+            try {
+                this.stream();
+            } finally {
+                source.deliver(this.newEventSpec(Syncable.OFF), JsonValue.NULL, this);
+                done.countDown();
+            }
+        } else if (Syncable.OFF.equals(op) || Syncable.REOFF.equals(op)) {
+            done.countDown();
+        }
+    }
+
+    private void stream() throws SwarmException {
+        List<Syncable> objects = new ArrayList<Syncable>(host.objects.values());
+        for (Syncable obj : objects) {
+            if (obj == host) continue;
+
+            JsonObject state;
+            synchronized (obj) {
+                if (obj.hasNoState()) continue;
+                state = obj.diff(VersionVectorSpec.ZERO_VERSION_VECTOR);
+            }
+            successor.deliver(obj.getTypeId().fullSpec(host.time(), Syncable.INIT), state, this);
+            sentCount++;
+        }
+        logger.info("{}: {} replicas handed off", this, sentCount);
+    }
+
+    /**
+     * Waits till all the replicas are sent
+     * @return true if handoff is finished
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * @return number of replicas sent to the successor
+     */
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    @Override
+    public FullSpec newEventSpec(OpToken op) {
+        return host.newEventSpec(op);
+    }
+
+    @Override
+    public TypeIdSpec getTypeId() {
+        return host.getTypeId();
+    }
+
+    @Override
+    public IdToken getPeerId() {
+        return host.getPeerId();
+    }
+
+    @Override
+    public void waitForCapacity() {
+        // handoff traffic is not limited
+    }
+
+    @Override
+    public void accept(OpChannel stream) {
+        throw new UnsupportedOperationException("handoff accepts no connections");
+    }
+
+    @Override
+    public void connect(URI upstreamURI, long reconnectTimeout, int connectionAttempt) throws SwarmException, UnsupportedProtocolException {
+        throw new UnsupportedOperationException("handoff uses a single channel");
+    }
+
+    @Override
+    public void connect(OpChannel upstream) throws SwarmException {
+        throw new UnsupportedOperationException("handoff uses a single channel");
+    }
+
+    @Override
+    public void disconnect(IdToken peerId) throws SwarmException {
+        done.countDown();
+    }
+
+    @Override
+    public void disconnect() {
+        done.countDown();
+    }
+
+    @Override
+    public String toString() {
+        return "StateHandoff{" + host.getPeerId() + "}";
+    }
+}
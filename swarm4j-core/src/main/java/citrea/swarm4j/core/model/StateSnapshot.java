@@ -0,0 +1,67 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable state of an object (field values plus version) as of the last logged
+ * operation applied, taken on demand. May be read by any thread without locking while
+ * the object keeps applying operations.
+ *
+ * @see Syncable#getSnapshot()
+ */
+public final class StateSnapshot {
+
+    private final String version;
+    private final Map<String, JsonValue> fields;
+
+    StateSnapshot(String version, Map<String, JsonValue> fields) {
+        this.version = version;
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * @return the object's version label (the greatest operation timestamp)
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return field value (JsonValue.NULL if the field is unknown)
+     */
+    public JsonValue get(String field) {
+        JsonValue res = fields.get(field);
+        return res == null ? JsonValue.NULL : res;
+    }
+
+    /**
+     * @return unmodifiable map of field values
+     */
+    public Map<String, JsonValue> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return field values as a new plain json object (see Syncable.getPOJO())
+     */
+    public JsonObject toJson() {
+        JsonObject res = new JsonObject();
+        for (Map.Entry<String, JsonValue> entry : fields.entrySet()) {
+            res.set(entry.getKey(), ImmutableJsonObject.thaw(entry.getValue()));
+        }
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return "StateSnapshot{" +
+                "version='" + version + '\'' +
+                ", fields=" + fields +
+                '}';
+    }
+}
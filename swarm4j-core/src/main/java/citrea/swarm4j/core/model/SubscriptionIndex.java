@@ -0,0 +1,72 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.callback.Peer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of replicas subscribed through connected peers (either as uplinks or as listeners),
+ * lets Host touch only affected replicas when a peer connects or disconnects.
+ * Maintained by <code>Syncable</code> on every subscription change.
+ */
+final class SubscriptionIndex {
+
+    private final ConcurrentMap<Peer, Set<Syncable>> index = new ConcurrentHashMap<Peer, Set<Syncable>>();
+
+    /**
+     * @return false if the replica has been indexed already
+     */
+    boolean add(Peer peer, Syncable obj) {
+        Set<Syncable> objects = index.get(peer);
+        if (objects == null) {
+            objects = Collections.newSetFromMap(new ConcurrentHashMap<Syncable, Boolean>());
+            Set<Syncable> existing = index.putIfAbsent(peer, objects);
+            if (existing != null) {
+                objects = existing;
+            }
+        }
+        return objects.add(obj);
+    }
+
+    /**
+     * @return false if the replica has not been indexed
+     */
+    boolean remove(Peer peer, Syncable obj) {
+        // empty sets are dropped by forget() only (concurrent add() may be in progress)
+        Set<Syncable> objects = index.get(peer);
+        return objects != null && objects.remove(obj);
+    }
+
+    /**
+     * @return snapshot of replicas subscribed through the peer
+     */
+    List<Syncable> objectsOf(Peer peer) {
+        Set<Syncable> objects = index.get(peer);
+        if (objects == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<Syncable>(objects);
+    }
+
+    boolean contains(Peer peer, Syncable obj) {
+        Set<Syncable> objects = index.get(peer);
+        return objects != null && objects.contains(obj);
+    }
+
+    int count(Peer peer) {
+        Set<Syncable> objects = index.get(peer);
+        return objects == null ? 0 : objects.size();
+    }
+
+    /**
+     * Drops the peer entry (once the peer is disconnected)
+     */
+    void forget(Peer peer) {
+        index.remove(peer);
+    }
+}
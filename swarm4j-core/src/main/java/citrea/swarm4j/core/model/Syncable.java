@@ -9,7 +9,9 @@ import citrea.swarm4j.core.meta.OperationMeta;
 import citrea.swarm4j.core.meta.TypeMeta;
 import citrea.swarm4j.core.model.oplog.LogDistillator;
 import citrea.swarm4j.core.model.oplog.NoLogDistillator;
+import citrea.swarm4j.core.model.oplog.OpLog;
 import citrea.swarm4j.core.spec.*;
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
 import citrea.swarm4j.core.model.value.JSONUtils;
 import citrea.swarm4j.core.util.ChainedIterators;
 
@@ -19,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static citrea.swarm4j.core.spec.SToken.ZERO_VERSION;
 import static citrea.swarm4j.core.spec.VersionVectorSpec.ZERO_VERSION_VECTOR;
@@ -40,7 +43,7 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
     public static final String TAIL_FIELD = "_tail";
     public static final String VERSION_FIELD = "_version";
     public static final String VECTOR_FIELD = "_vector";
-    public static final JsonObject EMPTY_JSON_OBJECT = JsonObject.unmodifiableObject(new JsonObject());
+    public static final JsonObject EMPTY_JSON_OBJECT = ImmutableJsonObject.freeze(new JsonObject());
 
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -52,12 +55,23 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
     // but that one may consume more space than the data itself in some cases.
     // Hence, version is not a fully specified version vector (see version()
     // instead). version is essentially is the greatest operation timestamp
-    // (Lamport-like, i.e. "time+source"), sometimes amended with additional
-    // timestamps. Its main features:
+    // (Lamport-like, i.e. "time+source"). Its main features:
     // (1) changes once the object's state changes
     // (2) does it monotonically (in the alphanumeric order sense)
     List<Uplink> uplinks = new ArrayList<Uplink>();
     List<OpRecipient> listeners = new ArrayList<OpRecipient>();
+    /**
+     * snapshot of uplinks and listeners indexed by op used by emit(), null when to be rebuilt
+     */
+    private RecipientIndex recipients = null;
+    /**
+     * last time the object has been accessed (operation delivered or got from host)
+     */
+    volatile long lastAccessTime = System.currentTimeMillis();
+    /**
+     * number of times the object has been accessed (by application, host and executor threads)
+     */
+    final AtomicLong accessCount = new AtomicLong(0L);
     LogDistillator logDistillator = new NoLogDistillator();
 
     Host host;
@@ -66,7 +80,20 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
     private IdToken id;
     String version = null;
     private String vector = null;
-    final Map<VersionOpSpec, JsonValue> oplog = new HashMap<VersionOpSpec, JsonValue>();
+    /**
+     * version vector maintained incrementally (version, vector and oplog timestamps)
+     */
+    private final CompactVersionVector versionVector = new CompactVersionVector();
+    final OpLog oplog = new OpLog();
+    final DiffCache diffCache = new DiffCache(DiffCache.DEFAULT_CAPACITY);
+    /**
+     * state as of the last getSnapshot() call (null till the first logged operation)
+     */
+    private volatile StateSnapshot snapshot = null;
+    /**
+     * true once a logged operation is applied, the snapshot is rebuilt by the next getSnapshot()
+     */
+    private volatile boolean snapshotStale = false;
 
     protected Syncable(IdToken id, Host host) throws SwarmException {
         this.id = id;
@@ -87,8 +114,13 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
         if (this.id == null) {
             this.id = this.host.time().convertToId();
             this.version = ZERO_VERSION.toString();
+            this.versionVector.add(ZERO_VERSION);
+        }
+        if (this.host.register(this) != this) {
+            // concurrently created replica is already registered, this one is dropped by Host.get(),
+            // or the replica is detached (see Host.hydrate())
+            return;
         }
-        this.host.register(this);
         this.checkUplink();
     }
 
@@ -97,13 +129,13 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
      */
     @Override
     public synchronized void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+        this.lastAccessTime = System.currentTimeMillis();
+        this.accessCount.incrementAndGet();
         if (logger.isDebugEnabled()) {
             logger.debug("{} <= ({}, {}, {})", this, spec, value, source);
         }
-        if (value != null && value.isObject()) {
-            value = JsonObject.unmodifiableObject(value.asObject());
-        }
-        String opver = spec.getVersion().toString();
+        // no-op for payloads frozen by Host or Pipe
+        value = ImmutableJsonObject.freeze(value);
 
         // sanity checks
         if (this.id == null) {
@@ -139,33 +171,25 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
                     // invoke the implementation
 
                     opMeta.invoke(this, spec, value, source);
+                    this.diffCache.clear();
 
                     // once applied, may remember in the log...
                     if (!INIT.equals(op)) {
-                        this.oplog.put(spec.getVersionOp(), value);
-
-                        // this.version is practically a label that lets you know whether
-                        // the state has changed. Also, it allows to detect some cases of
-                        // concurrent change, as it is always set to the maximum version id
-                        // received by this object. Still, only the full version vector may
-                        // precisely and uniquely specify the current version (see version()).
-                        if (this.isVersionOver(opver)) {
-                            this.version = opver;
-                        } else {
-                            this.version += opver;
-                        }
+                        this.logApplied(spec, value);
                     } else {
                         value = this.diff(VersionToken.ZERO_VERSION.asSpec());
                     }
+                    // ...let lock-free readers know the state has changed
+                    this.snapshotStale = true;
                     // ...and relay further to downstream replicas and various listeners
-                    this.emit(spec, value, source);
+                    this.emit(spec, value, source, opMeta);
                     break;
 
                 case Neutral:
                     // invoke the implementation
                     opMeta.invoke(this, spec, value, source);
                     // and relay to listeners
-                    this.emit(spec, value, source);
+                    this.emit(spec, value, source, opMeta);
                     break;
 
                 case Remote:
@@ -180,6 +204,133 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
         }
     }
 
+    /**
+     * Remembers an applied logged operation in the log and the version
+     */
+    private void logApplied(FullSpec spec, JsonValue value) {
+        this.oplog.put(spec.getVersionOp(), value);
+        this.versionVector.add(spec.getVersion());
+
+        // this.version is practically a label that lets you know whether
+        // the state has changed, as it is always set to the maximum version id
+        // received by this object. Still, only the full version vector may
+        // precisely and uniquely specify the current version (see version()).
+        String opver = spec.getVersion().toString();
+        if (this.isVersionOver(opver)) {
+            this.version = opver;
+        }
+    }
+
+    /**
+     * Applies a batch of logged operations (e.g. a log tail received after a long
+     * offline period) in one pass: replays are skipped, no per-operation notifications
+     * are sent; instead, uplinks and listeners get a single .init with the resulting state.
+     * @param ops parsed operations sorted by their specifiers (see Spec.ORDER_NATURAL)
+     * @param source source of the operations
+     * @return number of operations applied
+     */
+    public synchronized int applyBatch(SortedMap<VersionOpSpec, JsonValue> ops, OpRecipient source) throws SwarmException {
+        this.lastAccessTime = System.currentTimeMillis();
+        this.accessCount.incrementAndGet();
+        int applied = this.applyAll(ops, source);
+        if (applied > 0) {
+            this.snapshotStale = true;
+            this.emit(this.newEventSpec(INIT), this.diff(ZERO_VERSION_VECTOR), source, this.typeMeta.getOperationMeta(INIT));
+        }
+        return applied;
+    }
+
+    /**
+     * Applies logged operations without notifying anyone
+     * @return number of operations applied
+     */
+    private int applyAll(SortedMap<VersionOpSpec, JsonValue> ops, OpRecipient source) throws SwarmException {
+        if (this.id == null) {
+            logger.warn("{}.applyAll(): undead object invoked", this);
+            return 0;
+        }
+        TypeIdSpec typeId = this.getTypeId();
+        int applied = 0;
+        OpToken op = null;
+        OperationMeta opMeta = null;
+        for (Map.Entry<VersionOpSpec, JsonValue> entry : ops.entrySet()) {
+            FullSpec spec = typeId.fullSpec(entry.getKey());
+            JsonValue value = ImmutableJsonObject.freeze(entry.getValue());
+            // batches mostly consist of the same operations
+            if (!spec.getOp().equals(op)) {
+                op = spec.getOp();
+                opMeta = this.typeMeta.getOperationMeta(op);
+            }
+            if (opMeta == null || opMeta.getKind() != SwarmOperationKind.Logged || INIT.equals(op)) {
+                this.unimplemented(spec, value, source);
+                continue;
+            }
+
+            String error = this.validate(spec, value);
+            if (error != null && !"".equals(error)) {
+                source.deliver(spec.overrideOp(ERROR), JsonValue.valueOf("invalid input, " + error), OpRecipient.NOOP);
+                continue;
+            }
+            if (!this.acl(spec, value, source)) {
+                source.deliver(spec.overrideOp(ERROR), JsonValue.valueOf("access violation"), OpRecipient.NOOP);
+                continue;
+            }
+            if (this.isReplay(spec)) continue;
+
+            try {
+                opMeta.invoke(this, spec, value, source);
+            } catch (Exception ex) {
+                logger.error("applyAll({}, {}, {}) exception: ", spec, value, source, ex);
+                this.error(spec, JsonValue.valueOf("method execution failed: " + ex.toString()), source);
+                continue;
+            }
+            this.logApplied(spec, value);
+            applied++;
+        }
+        if (applied > 0) {
+            this.diffCache.clear();
+        }
+        return applied;
+    }
+
+    /**
+     * Applies an operation routed by Host unless the replica has been evicted
+     * (or closed otherwise) since it was looked up.
+     * @return false if the replica is not registered at the host anymore
+     */
+    synchronized boolean deliverIfRegistered(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+        if (!this.host.isRegistered(this)) {
+            return false;
+        }
+        this.deliver(spec, value, source);
+        return true;
+    }
+
+    /**
+     * Applies a group of queued operations addressed to this object
+     * holding the object's monitor once for the whole group.
+     * @param ops operations buffer
+     * @param from index of the first operation (inclusive)
+     * @param to index of the last operation (exclusive)
+     * @return false if the replica is not registered at the host anymore
+     *         (evicted since it was looked up), no operation is applied then
+     */
+    synchronized boolean deliverAll(QueuedOperation[] ops, int from, int to) {
+        if (!this.host.isRegistered(this)) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            QueuedOperation op = ops[i];
+            try {
+                this.deliver(op.getSpec(), op.getValue(), op.getPeer());
+            } catch (SwarmException e) {
+                //TODO fatal exception
+                logger.warn("Error processing operation: {}", op, e);
+            }
+        }
+        return true;
+    }
+
     private boolean isVersionOver(String version) {
         return this.version == null || version.compareTo(this.version) > 0;
     }
@@ -218,35 +369,26 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
      * Notify all the listeners of a state change (i.e. the operation applied).
      */
     protected void emit(FullSpec spec, JsonValue value, OpRecipient src) throws SwarmException {
-        @SuppressWarnings("unchecked") Iterator<OpRecipient> it = new ChainedIterators<OpRecipient>(
-                this.uplinks.iterator(),
-                this.listeners.iterator()
-        );
         OpToken op = spec.getOp();
         OperationMeta opMeta = this.typeMeta.getOperationMeta(op);
         if (opMeta == null) {
             throw new SwarmException("No method found: " + op.getBody());
         }
+        this.emit(spec, value, src, opMeta);
+    }
+
+    /**
+     * Allocation-free part of emit() (the operation is already resolved by deliver())
+     */
+    private void emit(FullSpec spec, JsonValue value, OpRecipient src, OperationMeta opMeta) {
         boolean is_neutrals = opMeta.getKind() == SwarmOperationKind.Neutral;
-        if (it.hasNext()) {
-            List<OpRecipient> notify = new ArrayList<OpRecipient>();
-            while (it.hasNext()) {
-                OpRecipient l = it.next();
-                // skip empties, deferreds and the source
-                if (l == null || l == src) continue;
-                if (is_neutrals && !(l instanceof OpFilter)) continue;
-                if (l instanceof OpFilter && !((OpFilter) l).getOp().equals(op)) continue;
-
-                notify.add(l);
-            }
-            for (OpRecipient l : notify) { // screw it I want my 'this'
-                try {
-                    l.deliver(spec, value, this);
-                } catch (Exception ex) {
-                    //TODO log console.error(ex.message, ex.stack);
-                }
-            }
+        // snapshot is immutable, so subscriptions may change while notifying
+        RecipientIndex index = this.getRecipients();
+        if (!is_neutrals) {
+            // neutral operations are delivered to op filters only
+            this.notify(index.getAll(), spec, value, src);
         }
+        this.notify(index.getFiltered(spec.getOp()), spec, value, src);
         /*TODO reactions
         var r = this._reactions[spec.op()];
         if (r) {
@@ -257,6 +399,19 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
         } */
     }
 
+    private void notify(OpRecipient[] recipients, FullSpec spec, JsonValue value, OpRecipient src) {
+        for (OpRecipient l : recipients) { // screw it I want my 'this'
+            // skip the source
+            if (l == src) continue;
+
+            try {
+                l.deliver(spec, value, this);
+            } catch (Exception ex) {
+                //TODO log console.error(ex.message, ex.stack);
+            }
+        }
+    }
+
     protected void trigger(OpToken op, JsonValue params) throws SwarmException {
         FullSpec spec = this.newEventSpec(op);
         this.deliver(spec, params, OpRecipient.NOOP);
@@ -278,25 +433,29 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
     }
 
     /**
-     * @return the version vector for this object
-     * @see citrea.swarm4j.core.spec.VersionVector
+     * @return the version vector for this object (maintained incrementally, don't modify)
+     * @see citrea.swarm4j.core.spec.CompactVersionVector
+     */
+    CompactVersionVector version() {
+        return this.versionVector;
+    }
+
+    /**
+     * Rebuilds the version vector from scratch (after the state is replaced)
      */
-    VersionVector version() {
+    private void rebuildVersionVector() {
         // distillLog() may drop some operations; still, those need to be counted
         // in the version vector; so, their Lamport ids must be saved in this.vector
-        VersionVector map = new VersionVector();
+        this.versionVector.clear();
         if (this.version != null) {
-            map.add(this.version);
+            this.versionVector.add(this.version);
         }
         if (this.vector != null) {
-            map.add(this.vector);
+            this.versionVector.add(this.vector);
         }
-        if (!this.oplog.isEmpty()) {
-            for (VersionOpSpec op : this.oplog.keySet()) {
-                map.add(op.getVersion());
-            }
+        for (VersionOpSpec op : this.oplog.keySet()) {
+            this.versionVector.add(op.getVersion());
         }
-        return map; // TODO return the object, let the consumer trim it to taste
     }
 
     /**
@@ -312,16 +471,31 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
     JsonObject diff(VersionVectorSpec base) {
         if (this.hasNoState()) return EMPTY_JSON_OBJECT;
 
+        // many subscribers may come with the same base (e.g. after a restart),
+        // so recent diffs are cached till the state changes
+        String key = new CompactVersionVector(base).toString(Integer.MAX_VALUE, "");
+        JsonObject patch = this.diffCache.get(key);
+        if (patch == null) {
+            patch = this.diffCache.put(key, this.makeDiff(base));
+        }
+        return patch;
+    }
+
+    /**
+     * @return JSON representation of a diff produced by this object
+     * if the diff is still cached, null otherwise
+     */
+    public String getSerializedDiff(JsonValue diff) {
+        return this.diffCache.serialized(diff);
+    }
+
+    private JsonObject makeDiff(VersionVectorSpec base) {
         this.distillLog(); // TODO optimize?
         JsonObject patch = new JsonObject();
         if (!base.isEmpty() && !ZERO_VERSION_VECTOR.equals(base)) {
-            VersionVector map = new VersionVector(base);
             JsonObject tail = new JsonObject();
-            for (Map.Entry<VersionOpSpec, JsonValue> op : this.oplog.entrySet()) {
-                VersionOpSpec spec = op.getKey();
-                if (!map.covers(spec.getVersion())) {
-                    tail.set(spec.toString(), op.getValue());
-                }
+            for (VersionOpSpec spec : this.oplog.tail(new CompactVersionVector(base))) {
+                tail.set(spec.toString(), this.oplog.get(spec));
             }
             if (!tail.isEmpty()) {
                 patch.set(Syncable.TAIL_FIELD, tail);
@@ -371,7 +545,7 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
 
         VersionOpSpec version_op = spec.getVersionOp();
         return this.oplog.containsKey(version_op) ||
-                this.version().covers(opver);
+                this.versionVector.covers(opver);
     }
 
     /**
@@ -526,13 +700,8 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
      */
     @SwarmOperation(kind = SwarmOperationKind.Logged)
     public void init(FullSpec spec, JsonValue state, OpRecipient source) throws SwarmException {
-        Map<String, JsonValue> tail = new HashMap<String, JsonValue>();
-        final TypeIdSpec typeid = spec.getTypeId();
-        List<Uplink> uplinksBak = this.uplinks;
-        List<OpRecipient> listenersBak = this.listeners;
-        // prevent events from being fired
-        this.uplinks = new ArrayList<Uplink>(0);
-        this.listeners = new ArrayList<OpRecipient>(0);
+        // no events are fired while the tail is applied (see applyAll())
+        SortedMap<VersionOpSpec, JsonValue> tail = new TreeMap<VersionOpSpec, JsonValue>(Spec.ORDER_NATURAL);
 
             /*if (state._version === '!0') { // uplink knows nothing FIXME dubious
                 if (!this._version) this._version = '!0';
@@ -544,9 +713,7 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
             if (state_version != null && state_version.isString()) {
                 // local changes may need to be merged into the received state
                 if (!this.oplog.isEmpty()) {
-                    for (Map.Entry<VersionOpSpec, JsonValue> op : this.oplog.entrySet()) {
-                        tail.put(op.getKey().toString(), op.getValue());
-                    }
+                    tail.putAll(this.oplog);
                     this.oplog.clear();
                 }
                 if (this.vector != null) {
@@ -574,6 +741,7 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
                 if (state_vector != null && state_vector.isString()) {
                     this.vector = state_vector.asString();
                 }
+                this.rebuildVersionVector();
             }
 
             // add the received tail to the local one
@@ -581,22 +749,14 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
             if (stateTail instanceof JsonObject) {
                 JsonObject joStateTail = (JsonObject) stateTail;
                 for (JsonObject.Member spec_val : joStateTail) {
-                    tail.put(spec_val.getName(), spec_val.getValue());
+                    tail.put(new VersionOpSpec(spec_val.getName()), spec_val.getValue());
                 }
             }
         }
 
         // appply the combined tail to the new state
-        String[] specs = tail.keySet().toArray(new String[tail.size()]);
-        Arrays.sort(specs);
         // there will be some replays, but those will be ignored
-        for (String a_spec : specs) {
-            VersionOpSpec versionOp = new VersionOpSpec(a_spec);
-            this.deliver(typeid.fullSpec(versionOp), tail.get(a_spec), source);
-        }
-
-        this.uplinks = uplinksBak;
-        this.listeners = listenersBak;
+        this.applyAll(tail, source);
     }
 
     /**
@@ -640,6 +800,29 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
         }
     }
 
+    /**
+     * Lock-free alternative to getPOJO(): the state as of the last logged operation applied.
+     * The snapshot is taken (holding the object's lock) by the first call after the state has changed,
+     * the following calls return it without locking.
+     * @return immutable snapshot or null if no logged operation (incl. .init) is applied yet
+     */
+    public StateSnapshot getSnapshot() throws SwarmException {
+        if (!this.snapshotStale) {
+            return this.snapshot;
+        }
+        synchronized (this) {
+            if (this.snapshotStale) {
+                Map<String, JsonValue> fields = new LinkedHashMap<String, JsonValue>();
+                for (FieldMeta field : this.typeMeta.getAllFields()) {
+                    fields.put(field.getName(), field.get(this));
+                }
+                this.snapshot = new StateSnapshot(this.version, fields);
+                this.snapshotStale = false;
+            }
+            return this.snapshot;
+        }
+    }
+
     /**
      * returns a Plain Javascript Object with the state
      */
@@ -647,7 +830,8 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
         JsonObject pojo = new JsonObject();
         //TODO defaults
         for (FieldMeta field : this.typeMeta.getAllFields()) {
-            JsonValue fieldValue = field.get(this);
+            // field values are frozen, the caller gets plain ones
+            JsonValue fieldValue = ImmutableJsonObject.thaw(field.get(this));
             pojo.set(field.getName(), fieldValue);
         }
         if (addVersionInfo) {
@@ -659,7 +843,7 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
             if (!this.oplog.isEmpty()) {
                 JsonObject oplog = new JsonObject();
                 for (Map.Entry<VersionOpSpec, JsonValue> op : this.oplog.entrySet()) {
-                    oplog.set(op.getKey().toString(), op.getValue());
+                    oplog.set(op.getKey().toString(), ImmutableJsonObject.thaw(op.getValue()));
                 }
                 pojo.set(Syncable.OPLOG_FIELD, oplog); //TODO copy
             }
@@ -691,14 +875,19 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
                 uplink.deliver(this.newEventSpec(OFF), JsonValue.NULL, this);
             }
             itUplinks.remove();
+            this.subscriptionRemoved(uplink);
         }
+        this.recipientsChanged();
         // notify listeners of object closing
         Iterator<OpRecipient> itListeners = listeners.iterator();
         while (itListeners.hasNext()) {
             // FIXME no version token in spec ???
-            itListeners.next().deliver(spec.fullSpec(VersionToken.ZERO_VERSION, REOFF), JsonValue.NULL, this);
+            OpRecipient listener = itListeners.next();
+            listener.deliver(spec.fullSpec(VersionToken.ZERO_VERSION, REOFF), JsonValue.NULL, this);
             itListeners.remove();
+            this.subscriptionRemoved(listener);
         }
+        this.recipientsChanged();
 
         this.host.unregister(this);
     }
@@ -728,6 +917,10 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
     public void addUplink(Uplink uplink) {
         logger.debug("{}.addUplink({})", this, uplink);
         this.uplinks.add(uplink);
+        if (this.recipients != null && uplink != null) {
+            this.recipients = this.recipients.with(uplink);
+        }
+        this.subscriptionAdded(uplink);
     }
 
     protected boolean isNotUplinked() {
@@ -745,6 +938,10 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
         logger.debug("{}.addListener({})", this, listener);
         if (!this.listeners.contains(listener)) {
             this.listeners.add(listener);
+            if (this.recipients != null && listener != null) {
+                this.recipients = this.recipients.with(listener);
+            }
+            this.subscriptionAdded(listener);
         }
     }
 
@@ -760,6 +957,8 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
             OpRecipient l = it.next();
             if (l == listener) {
                 it.remove();
+                this.recipientRemoved(l);
+                this.subscriptionRemoved(l);
                 return true;
             }
 
@@ -767,12 +966,86 @@ public abstract class Syncable implements SomeSyncable, SubscriptionAware {
             if (l.equals(listener)) {
                 logger.debug("{}.removeListener(): actualRemoved={}", this, l);
                 it.remove();
+                this.recipientRemoved(l);
+                this.subscriptionRemoved(l);
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * @return snapshot of all the uplinks and listeners (maintained on subscription change)
+     */
+    private RecipientIndex getRecipients() {
+        RecipientIndex res = this.recipients;
+        if (res == null) {
+            res = RecipientIndex.build(this.uplinks, this.listeners);
+            this.recipients = res;
+        }
+        return res;
+    }
+
+    private void recipientRemoved(OpRecipient recipient) {
+        if (this.recipients != null) {
+            this.recipients = this.recipients.without(recipient);
+        }
+    }
+
+    /**
+     * uplinks and listeners lists are replaced or cleared, the snapshot is to be rebuilt
+     */
+    private void recipientsChanged() {
+        this.recipients = null;
+    }
+
+    /**
+     * Updates host's index of replicas subscribed through connected peers
+     * @see citrea.swarm4j.core.model.SubscriptionIndex
+     */
+    private void subscriptionAdded(OpRecipient recipient) {
+        Peer peer = peerOf(recipient);
+        if (peer != null) {
+            this.host.subscriptionAdded(peer, this);
+        }
+    }
+
+    private void subscriptionRemoved(OpRecipient recipient) {
+        Peer peer = peerOf(recipient);
+        if (peer == null) return;
+
+        for (OpRecipient r : this.uplinks) {
+            if (peerOf(r) == peer) {
+                // still subscribed through the peer
+                return;
+            }
+        }
+        for (OpRecipient r : this.listeners) {
+            if (peerOf(r) == peer) {
+                // still subscribed through the peer
+                return;
+            }
+        }
+        this.host.subscriptionRemoved(peer, this);
+    }
+
+    /**
+     * @return connected peer (other Host or storage) the recipient stands for or null
+     */
+    private Peer peerOf(OpRecipient recipient) {
+        if (this.host == this) {
+            // Host tracks its peers itself
+            return null;
+        }
+        while (recipient instanceof FilteringOpRecipient) {
+            recipient = ((FilteringOpRecipient<?>) recipient).getInner();
+        }
+        if (recipient instanceof Peer) {
+            return (Peer) recipient;
+        }
+        return null;
+    }
+
     protected final TypeMeta getTypeMeta() throws SwarmException {
         return this.host.getTypeMeta(this.getClass());
     }
@@ -0,0 +1,141 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Result of <code>Host.getAsync()</code>: completes once the replica has state
+ * (receives it's ".init" notification).
+ *
+ * Callbacks are invoked by the thread completing the future (usually host's
+ * processing thread), so they should be short and must not block.
+ */
+public class SyncableFuture<T extends Syncable> implements Future<T>, OpRecipient {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncableFuture.class);
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private List<Callback<? super T>> callbacks = new ArrayList<Callback<? super T>>();
+    private volatile T result;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    /**
+     * Receives ".init" notification of the replica
+     */
+    @Override
+    public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+        if (!Syncable.INIT.equals(spec.getOp()) || !(source instanceof Syncable)) return;
+
+        @SuppressWarnings("unchecked") T replica = (T) source;
+        this.complete(replica, null, false);
+    }
+
+    public void fail(Throwable error) {
+        this.complete(null, error, false);
+    }
+
+    /**
+     * Adds callback to be invoked on completion (immediately if the future is already completed).
+     */
+    public void addCallback(Callback<? super T> callback) {
+        synchronized (this) {
+            if (callbacks != null) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        invoke(callback);
+    }
+
+    private void complete(T result, Throwable error, boolean cancelled) {
+        List<Callback<? super T>> toNotify;
+        synchronized (this) {
+            if (callbacks == null) return;
+
+            this.result = result;
+            this.error = error;
+            this.cancelled = cancelled;
+            toNotify = callbacks;
+            callbacks = null;
+        }
+        done.countDown();
+        for (Callback<? super T> callback : toNotify) {
+            invoke(callback);
+        }
+    }
+
+    private void invoke(Callback<? super T> callback) {
+        try {
+            if (cancelled) {
+                callback.onError(new CancellationException());
+            } else if (error != null) {
+                callback.onError(error);
+            } else {
+                callback.onReady(result);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Error in callback", e);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        this.complete(null, null, true);
+        return cancelled;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        done.await();
+        return getResult();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return getResult();
+    }
+
+    private T getResult() throws ExecutionException {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        if (error != null) {
+            throw new ExecutionException(error);
+        }
+        return result;
+    }
+
+    public interface Callback<T> {
+
+        void onReady(T obj);
+
+        void onError(Throwable error);
+    }
+}
@@ -2,6 +2,7 @@ package citrea.swarm4j.core.model.oplog;
 
 import citrea.swarm4j.core.spec.Spec;
 import citrea.swarm4j.core.spec.VersionOpSpec;
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
 import citrea.swarm4j.core.model.value.JSONUtils;
 import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.JsonValue;
@@ -57,11 +58,8 @@ public class ModelLogDistillator implements LogDistillator {
                 }
             }
             if (!fieldsToRemove.isEmpty()) {
-                // clone
-                jo = JsonObject.readFrom(jo.toString());
-                for (String field : fieldsToRemove) {
-                    jo.remove(field);
-                }
+                // values are immutable: make a copy sharing the rest of the fields
+                jo = ImmutableJsonObject.freeze(jo).without(fieldsToRemove);
                 oplog.put(spec, jo);
             }
             String source = spec.getVersion().getProcessId();
@@ -0,0 +1,166 @@
+package citrea.swarm4j.core.model.oplog;
+
+import citrea.swarm4j.core.spec.CompactVersionVector;
+import citrea.swarm4j.core.spec.VersionOpSpec;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Operation log: {!version.op: value} map additionally indexed by source process,
+ * operations of every process are ordered by their timestamps. So, the operations
+ * not covered by some version vector (the tail) are found without scanning the whole log.
+ */
+public class OpLog extends AbstractMap<VersionOpSpec, JsonValue> {
+
+    /**
+     * separates timestamp and operation name in index keys; it is less than
+     * any base64 char, so keys are ordered by timestamps first
+     */
+    private static final char SEPARATOR = ' ';
+    /**
+     * the next char after the separator: key "time" + AFTER is greater
+     * than any key having the same timestamp
+     */
+    private static final char AFTER = SEPARATOR + 1;
+
+    private final Map<VersionOpSpec, JsonValue> ops = new HashMap<VersionOpSpec, JsonValue>();
+    /**
+     * process id => {"time op": !version.op}
+     */
+    private final Map<String, NavigableMap<String, VersionOpSpec>> bySource = new HashMap<String, NavigableMap<String, VersionOpSpec>>();
+    private Set<Entry<VersionOpSpec, JsonValue>> entrySet;
+
+    private static String indexKey(VersionOpSpec spec) {
+        return spec.getVersion().getBare() + SEPARATOR + spec.getOp().toString();
+    }
+
+    private void index(VersionOpSpec spec) {
+        String source = spec.getVersion().getProcessId();
+        NavigableMap<String, VersionOpSpec> sourceOps = bySource.get(source);
+        if (sourceOps == null) {
+            sourceOps = new TreeMap<String, VersionOpSpec>();
+            bySource.put(source, sourceOps);
+        }
+        sourceOps.put(indexKey(spec), spec);
+    }
+
+    private void unindex(VersionOpSpec spec) {
+        String source = spec.getVersion().getProcessId();
+        NavigableMap<String, VersionOpSpec> sourceOps = bySource.get(source);
+        if (sourceOps != null) {
+            sourceOps.remove(indexKey(spec));
+            if (sourceOps.isEmpty()) {
+                bySource.remove(source);
+            }
+        }
+    }
+
+    @Override
+    public JsonValue put(VersionOpSpec spec, JsonValue value) {
+        JsonValue prev = ops.put(spec, value);
+        if (prev == null) {
+            index(spec);
+        }
+        return prev;
+    }
+
+    @Override
+    public JsonValue remove(Object key) {
+        JsonValue prev = ops.remove(key);
+        if (prev != null) {
+            unindex((VersionOpSpec) key);
+        }
+        return prev;
+    }
+
+    @Override
+    public JsonValue get(Object key) {
+        return ops.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return ops.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return ops.size();
+    }
+
+    @Override
+    public void clear() {
+        ops.clear();
+        bySource.clear();
+    }
+
+    @Override
+    public Set<Entry<VersionOpSpec, JsonValue>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * @param base version vector
+     * @return operations not covered by the base (ordered by timestamps within each process)
+     */
+    public List<VersionOpSpec> tail(CompactVersionVector base) {
+        List<VersionOpSpec> res = new ArrayList<VersionOpSpec>();
+        for (Map.Entry<String, NavigableMap<String, VersionOpSpec>> entry : bySource.entrySet()) {
+            String known = base.get(entry.getKey());
+            res.addAll(entry.getValue().tailMap(known + AFTER, true).values());
+        }
+        return res;
+    }
+
+    private class EntrySet extends AbstractSet<Entry<VersionOpSpec, JsonValue>> {
+
+        @Override
+        public Iterator<Entry<VersionOpSpec, JsonValue>> iterator() {
+            final Iterator<Entry<VersionOpSpec, JsonValue>> it = ops.entrySet().iterator();
+            return new Iterator<Entry<VersionOpSpec, JsonValue>>() {
+                private Entry<VersionOpSpec, JsonValue> last;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Entry<VersionOpSpec, JsonValue> next() {
+                    last = it.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    it.remove();
+                    unindex(last.getKey());
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ops.size();
+        }
+
+        @Override
+        public void clear() {
+            OpLog.this.clear();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package citrea.swarm4j.core.model.value;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonValue;
+
+/**
+ * Deeply immutable json array, the counterpart of ImmutableJsonObject for array values.
+ * Frozen arrays are recognized by freeze(), so they are never copied again.
+ *
+ * Like any JsonArray it is equal to arrays of the same class only.
+ *
+ * @see ImmutableJsonObject
+ */
+public final class ImmutableJsonArray extends JsonArray {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean frozen = false;
+
+    private ImmutableJsonArray() {
+        super();
+    }
+
+    /**
+     * @return the same array if it is immutable already, an immutable copy otherwise
+     */
+    public static ImmutableJsonArray freeze(JsonArray array) {
+        if (array instanceof ImmutableJsonArray) {
+            return (ImmutableJsonArray) array;
+        }
+        ImmutableJsonArray res = new ImmutableJsonArray();
+        for (JsonValue item : array) {
+            res.add(ImmutableJsonObject.freeze(item));
+        }
+        res.frozen = true;
+        return res;
+    }
+
+    @Override
+    public JsonArray add(int value) {
+        return this.add(valueOf(value));
+    }
+
+    @Override
+    public JsonArray add(long value) {
+        return this.add(valueOf(value));
+    }
+
+    @Override
+    public JsonArray add(float value) {
+        return this.add(valueOf(value));
+    }
+
+    @Override
+    public JsonArray add(double value) {
+        return this.add(valueOf(value));
+    }
+
+    @Override
+    public JsonArray add(boolean value) {
+        return this.add(valueOf(value));
+    }
+
+    @Override
+    public JsonArray add(String value) {
+        return this.add(valueOf(value));
+    }
+
+    @Override
+    public JsonArray add(JsonValue value) {
+        checkNotFrozen();
+        return super.add(value);
+    }
+
+    @Override
+    public JsonArray set(int index, int value) {
+        return this.set(index, valueOf(value));
+    }
+
+    @Override
+    public JsonArray set(int index, long value) {
+        return this.set(index, valueOf(value));
+    }
+
+    @Override
+    public JsonArray set(int index, float value) {
+        return this.set(index, valueOf(value));
+    }
+
+    @Override
+    public JsonArray set(int index, double value) {
+        return this.set(index, valueOf(value));
+    }
+
+    @Override
+    public JsonArray set(int index, boolean value) {
+        return this.set(index, valueOf(value));
+    }
+
+    @Override
+    public JsonArray set(int index, String value) {
+        return this.set(index, valueOf(value));
+    }
+
+    @Override
+    public JsonArray set(int index, JsonValue value) {
+        checkNotFrozen();
+        return super.set(index, value);
+    }
+
+    @Override
+    public JsonArray remove(int index) {
+        checkNotFrozen();
+        return super.remove(index);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("immutable json array");
+        }
+    }
+}
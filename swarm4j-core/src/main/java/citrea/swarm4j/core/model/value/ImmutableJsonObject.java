@@ -0,0 +1,139 @@
+package citrea.swarm4j.core.model.value;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.Collection;
+
+/**
+ * Deeply immutable json object used for operation values (payloads).
+ * Payloads are frozen once (when parsed or first delivered to the Host) and then
+ * passed through queues, the oplog and listeners as is. Modified versions are
+ * produced by with()/without() which share the (immutable) values with the original.
+ *
+ * Like any JsonObject it is equal to objects of the same class only, so frozen
+ * values are compared with frozen ones (use thaw() to get a plain copy).
+ */
+public final class ImmutableJsonObject extends JsonObject {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean frozen = false;
+
+    private ImmutableJsonObject() {
+        super();
+    }
+
+    /**
+     * @return the same value if it is immutable already, an immutable copy otherwise
+     */
+    public static JsonValue freeze(JsonValue value) {
+        if (value == null || value instanceof ImmutableJsonObject || value instanceof ImmutableJsonArray) {
+            return value;
+        }
+        if (value.isObject()) {
+            return freeze(value.asObject());
+        }
+        if (value.isArray()) {
+            return ImmutableJsonArray.freeze(value.asArray());
+        }
+        // literals, numbers and strings are immutable
+        return value;
+    }
+
+    /**
+     * @return plain (mutable) deep copy of the value
+     */
+    public static JsonValue thaw(JsonValue value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.isObject()) {
+            JsonObject res = new JsonObject();
+            for (Member member : value.asObject()) {
+                res.add(member.getName(), thaw(member.getValue()));
+            }
+            return res;
+        }
+        if (value.isArray()) {
+            JsonArray res = new JsonArray();
+            for (JsonValue item : value.asArray()) {
+                res.add(thaw(item));
+            }
+            return res;
+        }
+        return value;
+    }
+
+    public static ImmutableJsonObject freeze(JsonObject object) {
+        if (object instanceof ImmutableJsonObject) {
+            return (ImmutableJsonObject) object;
+        }
+        ImmutableJsonObject res = new ImmutableJsonObject();
+        for (Member member : object) {
+            res.add(member.getName(), freeze(member.getValue()));
+        }
+        res.frozen = true;
+        return res;
+    }
+
+    /**
+     * @return a copy with the member added or replaced
+     */
+    public ImmutableJsonObject with(String name, JsonValue value) {
+        ImmutableJsonObject res = new ImmutableJsonObject();
+        boolean replaced = false;
+        for (Member member : this) {
+            if (member.getName().equals(name)) {
+                res.add(name, freeze(value));
+                replaced = true;
+            } else {
+                res.add(member.getName(), member.getValue());
+            }
+        }
+        if (!replaced) {
+            res.add(name, freeze(value));
+        }
+        res.frozen = true;
+        return res;
+    }
+
+    /**
+     * @return a copy without the given members
+     */
+    public ImmutableJsonObject without(Collection<String> names) {
+        ImmutableJsonObject res = new ImmutableJsonObject();
+        for (Member member : this) {
+            if (!names.contains(member.getName())) {
+                res.add(member.getName(), member.getValue());
+            }
+        }
+        res.frozen = true;
+        return res;
+    }
+
+    @Override
+    public JsonObject add(String name, JsonValue value) {
+        checkNotFrozen();
+        return super.add(name, value);
+    }
+
+    @Override
+    public JsonObject set(String name, JsonValue value) {
+        checkNotFrozen();
+        return super.set(name, value);
+    }
+
+    @Override
+    public JsonObject remove(String name) {
+        checkNotFrozen();
+        return super.remove(name);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("immutable json object");
+        }
+    }
+}
@@ -2,8 +2,10 @@ package citrea.swarm4j.core.pipe;
 
 import citrea.swarm4j.core.*;
 import citrea.swarm4j.core.model.*;
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
 import citrea.swarm4j.core.callback.OpRecipient;
 import citrea.swarm4j.core.callback.Peer;
+import citrea.swarm4j.core.queue.PriorityOpQueue;
 import citrea.swarm4j.core.spec.*;
 
 import com.eclipsesource.json.JsonObject;
@@ -61,7 +63,16 @@ public final class Pipe implements OpChannelListener, OpRecipient, Peer {
             logger.debug("{} << {}", this, message);
         }
         this.lastReceivedTS = new Date().getTime();
-        for (Map.Entry<FullSpec, JsonValue> op : parse(message).entrySet()) {
+        SortedMap<FullSpec, JsonValue> ops = parse(message);
+        if (hasDataOperations(ops)) {
+            try {
+                // backpressure: stop reading the channel while the host is overloaded
+                host.waitForCapacity();
+            } catch (InterruptedException e) {
+                throw new SwarmException(e.getMessage(), e);
+            }
+        }
+        for (Map.Entry<FullSpec, JsonValue> op : ops.entrySet()) {
             switch (state) {
                 case NEW:
                 case WAIT_PEER:
@@ -78,6 +89,19 @@ public final class Pipe implements OpChannelListener, OpRecipient, Peer {
         }
     }
 
+    /**
+     * @return true if there are operations except handshakes, subscriptions and keep-alives
+     * @see citrea.swarm4j.core.queue.PriorityOpQueue#isControlOperation(citrea.swarm4j.core.spec.FullSpec)
+     */
+    private static boolean hasDataOperations(SortedMap<FullSpec, JsonValue> ops) {
+        for (FullSpec spec : ops.keySet()) {
+            if (!PriorityOpQueue.isControlOperation(spec)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void onClose(String error) {
         if (this.channel == null) return;
@@ -90,7 +114,14 @@ public final class Pipe implements OpChannelListener, OpRecipient, Peer {
 
     @Override
     public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
-        String message = Pipe.serialize(spec, value);
+        String serializedDiff = null;
+        if (Syncable.INIT.equals(spec.getOp()) && source instanceof Syncable) {
+            // the same diff is sent to many subscribers
+            serializedDiff = ((Syncable) source).getSerializedDiff(value);
+        }
+        String message = serializedDiff == null ?
+                Pipe.serialize(spec, value) :
+                Pipe.serialize(spec, serializedDiff);
 
         sendMessage(message);
 
@@ -246,6 +277,13 @@ public final class Pipe implements OpChannelListener, OpRecipient, Peer {
         return payload.toString();
     }
 
+    /**
+     * @param serializedValue JSON representation of the value
+     */
+    public static String serialize(Spec spec, String serializedValue) {
+        return "{" + JsonValue.valueOf(spec.toString()).toString() + ":" + serializedValue + "}";
+    }
+
     public static SortedMap<FullSpec, JsonValue> parse(String message) {
 
         JsonObject bundle = JsonObject.readFrom(message);
@@ -255,7 +293,8 @@ public final class Pipe implements OpChannelListener, OpRecipient, Peer {
         for (JsonObject.Member spec_val : bundle) {
             final String specStr = spec_val.getName();
             final FullSpec spec = new FullSpec(specStr);
-            final JsonValue value = spec_val.getValue();
+            // payloads are frozen once here and never copied further
+            final JsonValue value = ImmutableJsonObject.freeze(spec_val.getValue());
             operations.put(spec, value);
         }
         return operations;
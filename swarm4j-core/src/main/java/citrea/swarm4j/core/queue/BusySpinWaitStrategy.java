@@ -0,0 +1,29 @@
+package citrea.swarm4j.core.queue;
+
+/**
+ * Lowest latency, but burns a CPU core per waiting thread.
+ * Use only if there are spare cores for Host and StorageAdaptor threads.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void waitForOperations(int attempt) throws InterruptedException {
+        checkInterrupted();
+    }
+
+    @Override
+    public void waitForSpace(int attempt) throws InterruptedException {
+        checkInterrupted();
+    }
+
+    @Override
+    public void signalOperations() {
+        // nobody sleeps
+    }
+
+    static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
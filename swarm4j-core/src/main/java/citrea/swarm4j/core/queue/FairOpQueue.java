@@ -0,0 +1,312 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.callback.Peer;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Unbounded queue scheduling operations fairly between their sources: every peer
+ * (connection, storage) gets its own lane, lanes are served by deficit round-robin,
+ * so a chatty connection can't delay operations of the others by more than
+ * <code>quantum</code> operations per lane. Operations of other sources (replicas,
+ * application code) share the single local lane. The order within each lane is kept.
+ *
+ * Every operation costs 1, so the quantum is the number of operations taken
+ * from a lane per round.
+ */
+public class FairOpQueue implements OpQueue {
+
+    public static final int DEFAULT_QUANTUM = 16;
+
+    private static final Object LOCAL = new Object() {
+        @Override
+        public String toString() {
+            return "local";
+        }
+    };
+
+    private final ConcurrentMap<Object, Lane> lanes = new ConcurrentHashMap<Object, Lane>();
+    /**
+     * non-empty lanes in round-robin order
+     */
+    private final Queue<Lane> active = new ConcurrentLinkedQueue<Lane>();
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final int quantum;
+
+    private volatile Thread consumer = null;
+    /**
+     * lane being served and its deficit (consumer only)
+     */
+    private Lane current = null;
+    private int deficit = 0;
+
+    public FairOpQueue() {
+        this(DEFAULT_QUANTUM);
+    }
+
+    /**
+     * @param quantum number of operations taken from a lane per round
+     */
+    public FairOpQueue(int quantum) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("quantum should be positive");
+        }
+        this.quantum = quantum;
+    }
+
+    @Override
+    public void put(FullSpec spec, JsonValue value, OpRecipient source) throws InterruptedException {
+        Object key = source instanceof Peer ? source : LOCAL;
+        Lane lane = lanes.get(key);
+        if (lane == null) {
+            lane = new Lane(key);
+            Lane existing = lanes.putIfAbsent(key, lane);
+            if (existing != null) {
+                lane = existing;
+            }
+        }
+        lane.offer(new Entry(spec, value, source));
+        if (lane.scheduled.compareAndSet(false, true)) {
+            active.offer(lane);
+        }
+        size.incrementAndGet();
+        Thread waiting = consumer;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    @Override
+    public int drain(Handler handler, int maxOps) throws InterruptedException {
+        while (size.get() == 0) {
+            consumer = Thread.currentThread();
+            if (size.get() == 0) {
+                LockSupport.park(this);
+            }
+            consumer = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        int count = 0;
+        while (count < maxOps) {
+            if (current == null) {
+                current = active.poll();
+                if (current == null) break;
+                deficit += quantum;
+            }
+            if (deficit == 0) {
+                this.finishTurn(false);
+                continue;
+            }
+            Entry entry = current.poll();
+            if (entry == null) {
+                this.finishTurn(true);
+                continue;
+            }
+            deficit--;
+            size.decrementAndGet();
+            current.served(System.nanoTime() - entry.enqueuedAt);
+            handler.handle(entry.op);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Passes the turn to the next lane
+     * @param empty true if the current lane is drained
+     */
+    private void finishTurn(boolean empty) {
+        Lane lane = current;
+        current = null;
+        deficit = 0;
+        if (empty) {
+            lane.scheduled.set(false);
+            // the lane may have been filled after the poll
+            if (!lane.isEmpty() && lane.scheduled.compareAndSet(false, true)) {
+                active.offer(lane);
+            } else if (lane.isEmpty()) {
+                lanes.remove(lane.key, lane);
+            }
+        } else {
+            active.offer(lane);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return statistics of sources having operations queued (deepest lanes first)
+     */
+    public List<SourceStats> getSourceStats() {
+        List<SourceStats> res = new ArrayList<SourceStats>(lanes.size());
+        long now = System.nanoTime();
+        for (Lane lane : lanes.values()) {
+            res.add(lane.stats(now));
+        }
+        Collections.sort(res, new Comparator<SourceStats>() {
+            @Override
+            public int compare(SourceStats o1, SourceStats o2) {
+                return o2.getDepth() - o1.getDepth();
+            }
+        });
+        return res;
+    }
+
+    public int getQuantum() {
+        return quantum;
+    }
+
+    private static final class Entry {
+        final QueuedOperation op;
+        final long enqueuedAt;
+
+        Entry(FullSpec spec, JsonValue value, OpRecipient source) {
+            this.op = new QueuedOperation(spec, value, source);
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    private static final class Lane {
+        final Object key;
+        final Queue<Entry> entries = new ConcurrentLinkedQueue<Entry>();
+        final AtomicInteger depth = new AtomicInteger(0);
+        /**
+         * true while the lane is in the active list (or being served)
+         */
+        final AtomicBoolean scheduled = new AtomicBoolean(false);
+        // written by the consumer only
+        volatile long servedOps = 0L;
+        volatile long totalWaitNanos = 0L;
+        volatile long maxWaitNanos = 0L;
+
+        Lane(Object key) {
+            this.key = key;
+        }
+
+        void offer(Entry entry) {
+            entries.offer(entry);
+            depth.incrementAndGet();
+        }
+
+        Entry poll() {
+            Entry entry = entries.poll();
+            if (entry != null) {
+                depth.decrementAndGet();
+            }
+            return entry;
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        void served(long waitNanos) {
+            servedOps++;
+            totalWaitNanos += waitNanos;
+            if (waitNanos > maxWaitNanos) {
+                maxWaitNanos = waitNanos;
+            }
+        }
+
+        SourceStats stats(long now) {
+            Entry head = entries.peek();
+            return new SourceStats(
+                    key == LOCAL ? null : (OpRecipient) key,
+                    depth.get(),
+                    head == null ? 0L : now - head.enqueuedAt,
+                    servedOps,
+                    totalWaitNanos,
+                    maxWaitNanos
+            );
+        }
+    }
+
+    /**
+     * Queueing statistics of a single source (collected while it has operations queued)
+     */
+    public static final class SourceStats {
+        private final OpRecipient source;
+        private final int depth;
+        private final long oldestWaitNanos;
+        private final long servedOps;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        SourceStats(OpRecipient source, int depth, long oldestWaitNanos, long servedOps, long totalWaitNanos, long maxWaitNanos) {
+            this.source = source;
+            this.depth = depth;
+            this.oldestWaitNanos = oldestWaitNanos;
+            this.servedOps = servedOps;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /**
+         * @return peer (connection) or null for local operations
+         */
+        public OpRecipient getSource() {
+            return source;
+        }
+
+        /**
+         * @return number of queued operations
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return time the oldest queued operation is waiting for
+         */
+        public long getOldestWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(oldestWaitNanos);
+        }
+
+        public long getServedOps() {
+            return servedOps;
+        }
+
+        /**
+         * @return average time served operations were waiting for (microseconds)
+         */
+        public long getAverageWaitMicros() {
+            return servedOps == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / servedOps);
+        }
+
+        public long getMaxWaitMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "SourceStats{" +
+                    "source=" + (source == null ? LOCAL : source) +
+                    ", depth=" + depth +
+                    ", oldestWaitMillis=" + getOldestWaitMillis() +
+                    ", servedOps=" + servedOps +
+                    ", averageWaitMicros=" + getAverageWaitMicros() +
+                    '}';
+        }
+    }
+}
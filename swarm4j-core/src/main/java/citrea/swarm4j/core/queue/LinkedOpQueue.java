@@ -0,0 +1,38 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Unbounded queue based on <code>LinkedBlockingQueue</code> (default one).
+ */
+public class LinkedOpQueue implements OpQueue {
+
+    private final BlockingQueue<QueuedOperation> queue = new LinkedBlockingQueue<QueuedOperation>();
+
+    @Override
+    public void put(FullSpec spec, JsonValue value, OpRecipient source) throws InterruptedException {
+        queue.put(new QueuedOperation(spec, value, source));
+    }
+
+    @Override
+    public int drain(Handler handler, int maxOps) throws InterruptedException {
+        QueuedOperation op = queue.take();
+        int count = 0;
+        do {
+            handler.handle(op);
+            count++;
+        } while (count < maxOps && (op = queue.poll()) != null);
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
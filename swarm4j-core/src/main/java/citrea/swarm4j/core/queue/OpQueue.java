@@ -0,0 +1,42 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+
+/**
+ * Queue of operations with many producers and the single consumer.
+ *
+ * Implementations may reuse <code>QueuedOperation</code> instances, so the
+ * handler must not keep a reference to the operation passed to it.
+ */
+public interface OpQueue {
+
+    /**
+     * Enqueues operation (may block if the queue is bounded and full)
+     */
+    void put(FullSpec spec, JsonValue value, OpRecipient source) throws InterruptedException;
+
+    /**
+     * Waits for at least one operation and passes available operations to the handler.
+     * Must be called by the consumer thread only.
+     * @param handler operations handler
+     * @param maxOps max number of operations to be handled
+     * @return number of operations handled
+     */
+    int drain(Handler handler, int maxOps) throws InterruptedException;
+
+    /**
+     * @return (approximate) number of operations in the queue
+     */
+    int size();
+
+    public interface Handler {
+
+        /**
+         * @param op dequeued operation, valid during the call only
+         */
+        void handle(QueuedOperation op);
+    }
+}
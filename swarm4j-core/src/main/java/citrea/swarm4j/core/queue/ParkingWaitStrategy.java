@@ -0,0 +1,58 @@
+package citrea.swarm4j.core.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static citrea.swarm4j.core.queue.BusySpinWaitStrategy.checkInterrupted;
+
+/**
+ * Spins, then yields, then parks the waiting thread. Producers wake up
+ * the parked consumer; park timeout covers the rare case of a missed wake-up.
+ * Most CPU-friendly strategy (and the one to use by default).
+ *
+ * Instances must not be shared between queues.
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private volatile Thread parkedConsumer = null;
+
+    @Override
+    public void waitForOperations(int attempt) throws InterruptedException {
+        checkInterrupted();
+        if (attempt <= SPIN_TRIES) {
+            return;
+        }
+        if (attempt <= YIELD_TRIES) {
+            Thread.yield();
+            return;
+        }
+        parkedConsumer = Thread.currentThread();
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        parkedConsumer = null;
+    }
+
+    @Override
+    public void waitForSpace(int attempt) throws InterruptedException {
+        checkInterrupted();
+        if (attempt <= SPIN_TRIES) {
+            return;
+        }
+        if (attempt <= YIELD_TRIES) {
+            Thread.yield();
+            return;
+        }
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+    }
+
+    @Override
+    public void signalOperations() {
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.Host;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.model.Syncable;
+import citrea.swarm4j.core.spec.FullSpec;
+import citrea.swarm4j.core.spec.OpToken;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Unbounded queue with two lanes: control operations (handshakes, subscriptions
+ * and state initialization) are dequeued before data operations.
+ *
+ * Control operations may overtake data operations enqueued earlier, the order
+ * within each lane is kept. To keep data operations flowing under a stream of
+ * control operations, every <code>maxControlBurst</code> control operations in a row
+ * are followed by one data operation (if any).
+ */
+public class PriorityOpQueue implements OpQueue {
+
+    public static final int DEFAULT_MAX_CONTROL_BURST = 64;
+
+    private final Queue<QueuedOperation> control = new ConcurrentLinkedQueue<QueuedOperation>();
+    private final Queue<QueuedOperation> data = new ConcurrentLinkedQueue<QueuedOperation>();
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final int maxControlBurst;
+
+    private volatile Thread consumer = null;
+    /**
+     * control operations dequeued in a row (consumer only)
+     */
+    private int controlStreak = 0;
+
+    public PriorityOpQueue() {
+        this(DEFAULT_MAX_CONTROL_BURST);
+    }
+
+    /**
+     * @param maxControlBurst max number of control operations dequeued while data operations are waiting
+     */
+    public PriorityOpQueue(int maxControlBurst) {
+        if (maxControlBurst < 1) {
+            throw new IllegalArgumentException("maxControlBurst should be positive");
+        }
+        this.maxControlBurst = maxControlBurst;
+    }
+
+    /**
+     * @return true if operation should be processed with priority:
+     * any Host operation or (re)subscription, unsubscription and state initialization
+     */
+    public static boolean isControlOperation(FullSpec spec) {
+        if (Host.HOST.equals(spec.getType())) {
+            return true;
+        }
+        OpToken op = spec.getOp();
+        return Syncable.ON.equals(op) ||
+                Syncable.REON.equals(op) ||
+                Syncable.OFF.equals(op) ||
+                Syncable.REOFF.equals(op) ||
+                Syncable.INIT.equals(op);
+    }
+
+    @Override
+    public void put(FullSpec spec, JsonValue value, OpRecipient source) throws InterruptedException {
+        QueuedOperation op = new QueuedOperation(spec, value, source);
+        if (isControlOperation(spec)) {
+            control.offer(op);
+        } else {
+            data.offer(op);
+        }
+        size.incrementAndGet();
+        Thread waiting = consumer;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    @Override
+    public int drain(Handler handler, int maxOps) throws InterruptedException {
+        while (size.get() == 0) {
+            consumer = Thread.currentThread();
+            if (size.get() == 0) {
+                LockSupport.park(this);
+            }
+            consumer = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        int count = 0;
+        while (count < maxOps) {
+            QueuedOperation op = controlStreak < maxControlBurst ? control.poll() : null;
+            if (op == null) {
+                op = data.poll();
+                controlStreak = 0;
+                if (op == null) {
+                    op = control.poll();
+                    if (op == null) break;
+                }
+            } else {
+                controlStreak++;
+            }
+            size.decrementAndGet();
+            handler.handle(op);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    public int getControlSize() {
+        return control.size();
+    }
+
+    public int getDataSize() {
+        return data.size();
+    }
+}
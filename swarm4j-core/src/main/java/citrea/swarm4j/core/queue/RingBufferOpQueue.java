@@ -0,0 +1,123 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free bounded multi-producer/single-consumer queue.
+ *
+ * All the <code>QueuedOperation</code> slots are preallocated and reused, so
+ * enqueueing an operation allocates nothing. Producers claim a sequence number
+ * with CAS, fill the slot and publish it; the consumer handles published slots
+ * in sequence order and releases them.
+ *
+ * Note: the queue is bounded, so producers wait when it's full. Two threads
+ * feeding each other's full queues (e.g. Host and StorageAdaptor) would wait
+ * forever, so capacity should be chosen with some reserve.
+ */
+public class RingBufferOpQueue implements OpQueue {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final int capacity;
+    private final int mask;
+    private final QueuedOperation[] slots;
+    /**
+     * sequence number of the operation published in the slot
+     */
+    private final AtomicLongArray published;
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * next sequence number to be claimed by producers
+     */
+    private final AtomicLong tail = new AtomicLong(0L);
+    /**
+     * next sequence number to be handled by the consumer
+     */
+    private volatile long head = 0L;
+
+    public RingBufferOpQueue() {
+        this(DEFAULT_CAPACITY, new ParkingWaitStrategy());
+    }
+
+    /**
+     * @param capacity queue capacity, must be a power of 2
+     * @param waitStrategy wait strategy (instance must not be shared with other queues)
+     */
+    public RingBufferOpQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2");
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("waitStrategy can not be null");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+        this.slots = new QueuedOperation[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new QueuedOperation();
+            this.published.set(i, -1L);
+        }
+    }
+
+    @Override
+    public void put(FullSpec spec, JsonValue value, OpRecipient source) throws InterruptedException {
+        long seq;
+        int attempt = 0;
+        while (true) {
+            seq = tail.get();
+            if (seq - head >= capacity) {
+                waitStrategy.waitForSpace(++attempt);
+            } else if (tail.compareAndSet(seq, seq + 1)) {
+                break;
+            }
+        }
+        int idx = (int) seq & mask;
+        slots[idx].set(spec, value, source);
+        published.lazySet(idx, seq);
+        waitStrategy.signalOperations();
+    }
+
+    @Override
+    public int drain(Handler handler, int maxOps) throws InterruptedException {
+        long seq = head;
+        int idx = (int) seq & mask;
+        int attempt = 0;
+        while (published.get(idx) != seq) {
+            waitStrategy.waitForOperations(++attempt);
+        }
+
+        int count = 0;
+        do {
+            QueuedOperation op = slots[idx];
+            try {
+                handler.handle(op);
+            } finally {
+                op.clear();
+                seq++;
+                // releases the slot for producers
+                head = seq;
+            }
+            count++;
+            idx = (int) seq & mask;
+        } while (count < maxOps && published.get(idx) == seq);
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return (int) (tail.get() - head);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
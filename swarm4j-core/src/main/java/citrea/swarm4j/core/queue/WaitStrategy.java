@@ -0,0 +1,27 @@
+package citrea.swarm4j.core.queue;
+
+/**
+ * Defines how threads wait for a bounded queue state change
+ * (consumer – for new operations, producers – for free space).
+ *
+ * @see citrea.swarm4j.core.queue.RingBufferOpQueue
+ */
+public interface WaitStrategy {
+
+    /**
+     * Called by the consumer while there are no operations available
+     * @param attempt number of unsuccessful checks done so far
+     */
+    void waitForOperations(int attempt) throws InterruptedException;
+
+    /**
+     * Called by a producer while the queue is full
+     * @param attempt number of unsuccessful checks done so far
+     */
+    void waitForSpace(int attempt) throws InterruptedException;
+
+    /**
+     * Called by a producer after an operation was published
+     */
+    void signalOperations();
+}
@@ -0,0 +1,190 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue decorator limiting inbound traffic with high/low watermarks.
+ *
+ * When the queue size reaches the high watermark the queue is "paused":
+ * inbound connections (see <code>Pipe</code>) waiting in awaitCapacity() stop reading
+ * from their sockets until the consumer drains the queue down to the low watermark.
+ * put() itself never blocks, so operations produced by hosts are always accepted
+ * and the queue size may exceed the high watermark by the number of paused connections
+ * and the number of internally produced operations.
+ *
+ * Threads processing operations never wait for capacity (hosts connected in-process
+ * would deadlock otherwise): consumer thread is marked automatically, other processing
+ * threads should call markProcessingThread().
+ *
+ * Operations passed to a consumer around the inner queue (e.g. to a <code>HostExecutor</code>)
+ * are accounted with acquire()/release().
+ */
+public class WatermarkOpQueue implements OpQueue {
+
+    private static final ThreadLocal<Boolean> processingThread = new ThreadLocal<Boolean>();
+
+    private final OpQueue inner;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private volatile boolean paused = false;
+    private volatile boolean closed = false;
+    private long pausedAt = 0L;
+    private long pausedNanos = 0L;
+    private int pauseCount = 0;
+
+    /**
+     * @param inner queue to be decorated
+     * @param highWatermark queue size to pause inbound connections at
+     * @param lowWatermark queue size to resume paused inbound connections at
+     */
+    public WatermarkOpQueue(OpQueue inner, int highWatermark, int lowWatermark) {
+        if (inner == null) {
+            throw new IllegalArgumentException("inner queue can not be null");
+        }
+        if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("0 <= lowWatermark < highWatermark expected");
+        }
+        this.inner = inner;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * Marks current thread as the one processing operations, so it won't wait in awaitCapacity()
+     */
+    public static void markProcessingThread() {
+        processingThread.set(Boolean.TRUE);
+    }
+
+    public static boolean isProcessingThread() {
+        return processingThread.get() != null;
+    }
+
+    @Override
+    public void put(FullSpec spec, JsonValue value, OpRecipient source) throws InterruptedException {
+        inner.put(spec, value, source);
+        this.acquire();
+    }
+
+    @Override
+    public int drain(Handler handler, int maxOps) throws InterruptedException {
+        if (processingThread.get() == null) {
+            markProcessingThread();
+        }
+        int count = inner.drain(handler, maxOps);
+        this.release(count);
+        return count;
+    }
+
+    /**
+     * Accounts an operation enqueued outside of the inner queue
+     */
+    public void acquire() {
+        if (size.incrementAndGet() >= highWatermark && !paused) {
+            pause();
+        }
+    }
+
+    /**
+     * Accounts operations processed (taken from outside of the inner queue)
+     * @param count number of operations
+     */
+    public void release(int count) {
+        if (size.addAndGet(-count) <= lowWatermark && paused) {
+            resume();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Waits while the queue is paused (returns immediately for processing threads).
+     */
+    public void awaitCapacity() throws InterruptedException {
+        if (!paused || isProcessingThread()) return;
+
+        synchronized (this) {
+            while (paused && !closed) {
+                this.wait();
+            }
+        }
+    }
+
+    /**
+     * Releases waiting connections and stops pausing them (once the consumer is stopped).
+     */
+    public synchronized void close() {
+        if (closed) return;
+
+        closed = true;
+        if (paused) {
+            paused = false;
+            pausedNanos += System.nanoTime() - pausedAt;
+        }
+        this.notifyAll();
+    }
+
+    private synchronized void pause() {
+        if (paused || closed || size.get() < highWatermark) return;
+
+        paused = true;
+        pausedAt = System.nanoTime();
+        pauseCount++;
+        // the consumer may have drained the queue without noticing the pause
+        if (size.get() <= lowWatermark) {
+            resume();
+        }
+    }
+
+    private synchronized void resume() {
+        if (!paused || size.get() > lowWatermark) return;
+
+        paused = false;
+        pausedNanos += System.nanoTime() - pausedAt;
+        this.notifyAll();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * @return number of times inbound connections have been paused
+     */
+    public synchronized int getPauseCount() {
+        return pauseCount;
+    }
+
+    /**
+     * @return total time inbound connections have been paused (including the current pause)
+     */
+    public synchronized long getPausedTimeMillis() {
+        long nanos = pausedNanos;
+        if (paused) {
+            nanos += System.nanoTime() - pausedAt;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public OpQueue getInner() {
+        return inner;
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+}
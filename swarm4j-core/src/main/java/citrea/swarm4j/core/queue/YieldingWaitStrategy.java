@@ -0,0 +1,33 @@
+package citrea.swarm4j.core.queue;
+
+import static citrea.swarm4j.core.queue.BusySpinWaitStrategy.checkInterrupted;
+
+/**
+ * Spins for a while then yields the CPU to other threads.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void waitForOperations(int attempt) throws InterruptedException {
+        backOff(attempt);
+    }
+
+    @Override
+    public void waitForSpace(int attempt) throws InterruptedException {
+        backOff(attempt);
+    }
+
+    @Override
+    public void signalOperations() {
+        // nobody sleeps
+    }
+
+    private static void backOff(int attempt) throws InterruptedException {
+        checkInterrupted();
+        if (attempt > SPIN_TRIES) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Contains queues of operations awaiting processing by Host and StorageAdaptor threads.
+ *
+ * @see citrea.swarm4j.core.queue.OpQueue
+ * @see citrea.swarm4j.core.queue.RingBufferOpQueue
+ * @see citrea.swarm4j.core.queue.PriorityOpQueue
+ * @see citrea.swarm4j.core.queue.WatermarkOpQueue
+ */
+package citrea.swarm4j.core.queue;
@@ -0,0 +1,185 @@
+package citrea.swarm4j.core.spec;
+
+import com.eclipsesource.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Version vector maintained incrementally: process ids with the greatest timestamps
+ * seen from them, timestamps are packed into longs (7 bits per base64 char, up to 9 chars)
+ * which compare the same way their strings do. Longer timestamps are compared as strings.
+ * Adding a token and checking coverage take O(processes) and allocate nothing
+ * (except for a newly seen process).
+ *
+ * String representation is the same as of <code>VersionVector</code>.
+ */
+public final class CompactVersionVector {
+
+    private static final int PACKED_CHARS = 9;
+    private static final byte[] CODES = new byte[128];
+
+    static {
+        for (int i = 0; i < SToken.BASE64.length(); i++) {
+            CODES[SToken.BASE64.charAt(i)] = (byte) (i + 1);
+        }
+    }
+
+    private String[] processes = new String[4];
+    private String[] times = new String[4];
+    private long[] packed = new long[4];
+    private int size = 0;
+
+    public CompactVersionVector() {
+    }
+
+    public CompactVersionVector(String vector) {
+        this.add(vector);
+    }
+
+    public CompactVersionVector(VersionVectorSpec vector) {
+        this.add(vector);
+    }
+
+    /**
+     * @return packed timestamp or -1 if it can't be packed
+     */
+    static long pack(String bare) {
+        int len = bare.length();
+        if (len > PACKED_CHARS) return -1L;
+
+        long res = 0L;
+        for (int i = 0; i < PACKED_CHARS; i++) {
+            int code = 0;
+            if (i < len) {
+                char c = bare.charAt(i);
+                code = c < 128 ? CODES[c] : 0;
+                if (code == 0) return -1L;
+            }
+            res = (res << 7) | code;
+        }
+        return res;
+    }
+
+    private static int compare(long packed1, String time1, long packed2, String time2) {
+        if (packed1 >= 0 && packed2 >= 0) {
+            return packed1 < packed2 ? -1 : (packed1 == packed2 ? 0 : 1);
+        }
+        return time1.compareTo(time2);
+    }
+
+    private int indexOf(String process) {
+        for (int i = 0; i < size; i++) {
+            if (processes[i].equals(process)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void add(VersionToken token) {
+        String time = token.getBare();
+        String process = token.getProcessId();
+        long p = pack(time);
+        int idx = indexOf(process);
+        if (idx < 0) {
+            if (time.length() == 0) return;
+
+            if (size == processes.length) {
+                int capacity = size * 2;
+                String[] newProcesses = new String[capacity];
+                String[] newTimes = new String[capacity];
+                long[] newPacked = new long[capacity];
+                System.arraycopy(processes, 0, newProcesses, 0, size);
+                System.arraycopy(times, 0, newTimes, 0, size);
+                System.arraycopy(packed, 0, newPacked, 0, size);
+                processes = newProcesses;
+                times = newTimes;
+                packed = newPacked;
+            }
+            processes[size] = process;
+            times[size] = time;
+            packed[size] = p;
+            size++;
+        } else if (compare(p, time, packed[idx], times[idx]) > 0) {
+            times[idx] = time;
+            packed[idx] = p;
+        }
+    }
+
+    public void add(VersionVectorSpec vector) {
+        Iterator<VersionToken> it = vector.getTokenIterator();
+        while (it.hasNext()) {
+            add(it.next());
+        }
+    }
+
+    public void add(String vector) {
+        add(new VersionVectorSpec(vector));
+    }
+
+    public boolean covers(VersionToken version) {
+        String time = version.getBare();
+        int idx = indexOf(version.getProcessId());
+        if (idx < 0) {
+            return time.length() == 0;
+        }
+        return compare(pack(time), time, packed[idx], times[idx]) <= 0;
+    }
+
+    /**
+     * @return the greatest timestamp seen from the process ("" if none)
+     */
+    public String get(String process) {
+        int idx = indexOf(process);
+        return idx < 0 ? "" : times[idx];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            processes[i] = null;
+            times[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return number of processes
+     */
+    public int size() {
+        return size;
+    }
+
+    public String toString(int top, String rot) {
+        rot = "!" + rot;
+        List<String> ret = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            ret.add("!" + times[i] + (SToken.NO_AUTHOR.equals(processes[i]) ? "" : "+" + processes[i]));
+        }
+        Collections.sort(ret, Collections.reverseOrder());
+        while (ret.size() > top || (ret.size() > 0 && ret.get(ret.size() - 1).compareTo(rot) <= 0)) {
+            ret.remove(ret.size() - 1);
+        }
+
+        StringBuilder res = new StringBuilder();
+        if (ret.size() > 0) {
+            for (String item : ret) {
+                res.append(item);
+            }
+        } else {
+            res.append(SToken.ZERO_VERSION.toString());
+        }
+        return res.toString();
+    }
+
+    @Override
+    public String toString() {
+        return this.toString(10, "0");
+    }
+
+    public JsonValue toJson() {
+        return JsonValue.valueOf(toString());
+    }
+}
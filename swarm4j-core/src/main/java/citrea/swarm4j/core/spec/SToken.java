@@ -50,6 +50,7 @@ public abstract class SToken implements Comparable<SToken> {
     private SQuant quant;
     private String bare;
     private String processId;
+    private String body;
 
     SToken(String tokenAsString) {
         // TODO ??? validate format
@@ -161,7 +162,13 @@ public abstract class SToken implements Comparable<SToken> {
     }
 
     public String getBody() {
-        return str.substring(1);
+        // cached: operation names are looked up by body on every delivery
+        String res = this.body;
+        if (res == null) {
+            res = str.substring(1);
+            this.body = res;
+        }
+        return res;
     }
 
     /**
@@ -0,0 +1,86 @@
+package citrea.swarm4j.core.storage;
+
+import citrea.swarm4j.core.SwarmException;
+import com.eclipsesource.json.JsonObject;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps hot objects list in a single JSON file: <code>{"/Type#id": {"count": N, "snapshot": {...}}, ...}</code>.
+ * The file is written next to the old one and renamed over it, which is atomic where
+ * rename replaces existing files (POSIX). Elsewhere the old file is removed first,
+ * the written one is read if a crash happens in between.
+ */
+public class FileHotObjectsStore implements HotObjectsStore {
+
+    private final File file;
+
+    public FileHotObjectsStore(String fileName) {
+        this.file = new File(fileName);
+    }
+
+    @Override
+    public synchronized void write(List<HotObject> objects) throws SwarmException {
+        JsonObject json = new JsonObject();
+        for (HotObject obj : objects) {
+            json.set(obj.getTypeId().toString(), obj.toJson());
+        }
+
+        File tmp = this.getTmpFile();
+        try {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), FileStorage.CHARSET_UTF8);
+            try {
+                json.writeTo(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new SwarmException("Error writing hot objects: " + e.getMessage(), e);
+        }
+        if (tmp.renameTo(file)) {
+            return;
+        }
+        // platform doesn't rename over existing files
+        if (file.exists() && !file.delete()) {
+            throw new SwarmException("Can't remove file: " + file.getAbsolutePath());
+        }
+        if (!tmp.renameTo(file)) {
+            throw new SwarmException("Can't rename file \"" + tmp.getAbsolutePath() + "\" into \"" + file.getAbsolutePath() + "\"");
+        }
+    }
+
+    private File getTmpFile() {
+        return new File(file.getAbsolutePath() + ".tmp");
+    }
+
+    @Override
+    public synchronized List<HotObject> read() throws SwarmException {
+        File source = file;
+        if (!source.exists()) {
+            // removed by write(), but not replaced
+            source = this.getTmpFile();
+            if (!source.exists()) {
+                return Collections.emptyList();
+            }
+        }
+        JsonObject json;
+        try {
+            Reader reader = new InputStreamReader(new FileInputStream(source), FileStorage.CHARSET_UTF8);
+            try {
+                json = JsonObject.readFrom(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new SwarmException("Error reading hot objects: " + e.getMessage(), e);
+        }
+        List<HotObject> res = new ArrayList<HotObject>(json.size());
+        for (JsonObject.Member member : json) {
+            res.add(HotObject.fromJson(member.getName(), member.getValue()));
+        }
+        return res;
+    }
+}
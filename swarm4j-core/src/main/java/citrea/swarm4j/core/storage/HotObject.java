@@ -0,0 +1,68 @@
+package citrea.swarm4j.core.storage;
+
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+/**
+ * Frequently accessed object remembered by a host to be preloaded on the next start.
+ */
+public final class HotObject {
+
+    private static final String COUNT_FIELD = "count";
+    private static final String SNAPSHOT_FIELD = "snapshot";
+
+    private final TypeIdSpec typeId;
+    private final long accessCount;
+    private final JsonObject snapshot;
+
+    /**
+     * @param typeId object's type-id specifier
+     * @param accessCount number of times object has been accessed
+     * @param snapshot object's state as transferred between replicas (zero version plus log) or null
+     */
+    public HotObject(TypeIdSpec typeId, long accessCount, JsonObject snapshot) {
+        this.typeId = typeId;
+        this.accessCount = accessCount;
+        this.snapshot = snapshot;
+    }
+
+    public TypeIdSpec getTypeId() {
+        return typeId;
+    }
+
+    public long getAccessCount() {
+        return accessCount;
+    }
+
+    public JsonObject getSnapshot() {
+        return snapshot;
+    }
+
+    public JsonObject toJson() {
+        JsonObject res = new JsonObject();
+        res.set(COUNT_FIELD, accessCount);
+        if (snapshot != null) {
+            res.set(SNAPSHOT_FIELD, snapshot);
+        }
+        return res;
+    }
+
+    public static HotObject fromJson(String typeId, JsonValue json) {
+        JsonObject obj = json.asObject();
+        JsonValue snapshot = obj.get(SNAPSHOT_FIELD);
+        return new HotObject(
+                new TypeIdSpec(typeId),
+                obj.get(COUNT_FIELD).asLong(),
+                snapshot != null && snapshot.isObject() ? snapshot.asObject() : null
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "HotObject{" +
+                "typeId=" + typeId +
+                ", accessCount=" + accessCount +
+                '}';
+    }
+}
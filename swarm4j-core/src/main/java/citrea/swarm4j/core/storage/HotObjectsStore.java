@@ -0,0 +1,21 @@
+package citrea.swarm4j.core.storage;
+
+import citrea.swarm4j.core.SwarmException;
+
+import java.util.List;
+
+/**
+ * Keeps the list of host's hot objects between restarts (see Host.setWarmup())
+ */
+public interface HotObjectsStore {
+
+    /**
+     * Replaces previously saved list
+     */
+    void write(List<HotObject> objects) throws SwarmException;
+
+    /**
+     * @return saved list (empty if nothing saved yet)
+     */
+    List<HotObject> read() throws SwarmException;
+}
@@ -0,0 +1,23 @@
+package citrea.swarm4j.core.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory hot objects store. Used mostly in tests.
+ */
+public class InMemoryHotObjectsStore implements HotObjectsStore {
+
+    private volatile List<HotObject> objects = Collections.emptyList();
+
+    @Override
+    public void write(List<HotObject> objects) {
+        this.objects = Collections.unmodifiableList(new ArrayList<HotObject>(objects));
+    }
+
+    @Override
+    public List<HotObject> read() {
+        return objects;
+    }
+}
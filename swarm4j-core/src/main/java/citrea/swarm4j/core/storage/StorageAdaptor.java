@@ -2,12 +2,15 @@ package citrea.swarm4j.core.storage;
 
 import citrea.swarm4j.core.model.Host;
 import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.queue.LinkedOpQueue;
+import citrea.swarm4j.core.queue.OpQueue;
 import citrea.swarm4j.core.SwarmException;
 import citrea.swarm4j.core.model.Syncable;
 import citrea.swarm4j.core.callback.OpRecipient;
 import citrea.swarm4j.core.callback.Peer;
 import citrea.swarm4j.core.spec.*;
 
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
 import citrea.swarm4j.core.model.value.JSONUtils;
 import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.JsonValue;
@@ -18,9 +21,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static citrea.swarm4j.core.model.SubscriptionAware.OFF;
 import static citrea.swarm4j.core.model.SubscriptionAware.ON;
@@ -53,7 +57,18 @@ public final class StorageAdaptor implements Peer, Runnable {
 
     private final Logger logger = LoggerFactory.getLogger(StorageAdaptor.class);
 
-    public final BlockingQueue<QueuedOperation> queue = new LinkedBlockingQueue<QueuedOperation>();
+    private OpQueue queue = new LinkedOpQueue();
+    private final OpQueue.Handler queueHandler = new OpQueue.Handler() {
+        @Override
+        public void handle(QueuedOperation op) {
+            try {
+                deliver(op.getSpec(), op.getValue(), op.getPeer());
+            } catch (SwarmException e) {
+                //TODO fatal exception
+                logger.warn("Error processing operation: {}", op, e);
+            }
+        }
+    };
 
     private final Storage storage;
 
@@ -69,6 +84,14 @@ public final class StorageAdaptor implements Peer, Runnable {
 
     private Map<TypeIdSpec, Long> counts = new HashMap<TypeIdSpec, Long>();
 
+    /**
+     * state loads in progress: concurrent subscriptions to the same object share
+     * a single storage read (in async mode loads are kept till the end of the drained batch)
+     */
+    private final ConcurrentMap<TypeIdSpec, StateLoad> loads = new ConcurrentHashMap<TypeIdSpec, StateLoad>();
+    private final AtomicLong stateReads = new AtomicLong(0L);
+    private final AtomicLong coalescedLoads = new AtomicLong(0L);
+
     public StorageAdaptor(IdToken id, Storage storage) {
         if (storage == null) {
             throw new IllegalArgumentException("storage can not be null");
@@ -91,6 +114,17 @@ public final class StorageAdaptor implements Peer, Runnable {
         this.async = async;
     }
 
+    /**
+     * Replaces operations queue (used in async mode only), must be called before start()
+     * @param queue queue implementation
+     */
+    public final void setQueue(OpQueue queue) {
+        if (queueThread != null) {
+            throw new IllegalStateException("Can't change queue of the running storage adaptor");
+        }
+        this.queue = queue;
+    }
+
     public final void setMaxLogSize(long maxLogSize) {
         this.maxLogSize = maxLogSize;
     }
@@ -100,7 +134,7 @@ public final class StorageAdaptor implements Peer, Runnable {
         if (queueThread != null && queueThread != Thread.currentThread()) {
             // queue
             try {
-                queue.put(new QueuedOperation(spec, value, source));
+                queue.put(spec, value, source);
             } catch (InterruptedException e) {
                 throw new SwarmException(e.getMessage(), e);
             }
@@ -131,6 +165,46 @@ public final class StorageAdaptor implements Peer, Runnable {
             list.add(source);
         }
 
+        StateLoad load = new StateLoad();
+        StateLoad inFlight = loads.putIfAbsent(ti, load);
+        if (inFlight == null) {
+            try {
+                load.complete(readState(ti));
+            } catch (SwarmException e) {
+                load.fail(e);
+                throw e;
+            } catch (RuntimeException e) {
+                load.fail(new SwarmException(e.getMessage(), e));
+                throw e;
+            } finally {
+                if (load.isFailed() || queueThread != Thread.currentThread()) {
+                    loads.remove(ti, load);
+                }
+            }
+        } else {
+            coalescedLoads.incrementAndGet();
+            load = inFlight;
+        }
+        JsonObject state = load.await();
+
+        FullSpec reonSpec = ti.fullSpec(spec.getVersion(), REON);
+        if (state != null) {
+            FullSpec initSpec = ti.fullSpec(spec.getVersion(), INIT);
+            source.deliver(initSpec, state, this);
+            source.deliver(reonSpec, load.getVersionVector(), this);
+            // TODO and the tail
+        } else {
+            // state unknown
+            source.deliver(reonSpec, ZERO_VERSION.toJson(), this);
+        }
+    }
+
+    /**
+     * Reads object's state merged with its log tail
+     * @return state or null if unknown
+     */
+    private JsonObject readState(TypeIdSpec ti) throws SwarmException {
+        stateReads.incrementAndGet();
         JsonObject state = storage.readState(ti);
         JsonObject tail = storage.readOps(ti);
         if (state == null) {
@@ -154,16 +228,7 @@ public final class StorageAdaptor implements Peer, Runnable {
                 }
             }
         }
-        FullSpec reonSpec = ti.fullSpec(spec.getVersion(), REON);
-        if (state != null) {
-            FullSpec initSpec = ti.fullSpec(spec.getVersion(), INIT);
-            source.deliver(initSpec, state, this);
-            source.deliver(reonSpec, stateVersionVector(state), this);
-            // TODO and the tail
-        } else {
-            // state unknown
-            source.deliver(reonSpec, ZERO_VERSION.toJson(), this);
-        }
+        return state;
     }
 
     private void off(FullSpec spec, OpRecipient source) {
@@ -180,6 +245,7 @@ public final class StorageAdaptor implements Peer, Runnable {
 
     private void init(FullSpec spec, final JsonValue state) {
         final TypeIdSpec ti = spec.getTypeId();
+        loads.remove(ti);
 
         try {
             storage.writeState(ti, state);
@@ -191,6 +257,7 @@ public final class StorageAdaptor implements Peer, Runnable {
 
     private void anyOp(FullSpec spec, JsonValue val, OpRecipient source) throws SwarmException {
         TypeIdSpec ti = spec.getTypeId();
+        loads.remove(ti);
         try {
             storage.writeOp(spec, val);
         } catch (SwarmException ex) {
@@ -253,6 +320,20 @@ public final class StorageAdaptor implements Peer, Runnable {
         return new VersionVector(str.toString()).toJson();
     }
 
+    /**
+     * @return number of object states read from the storage
+     */
+    public long getStateReads() {
+        return stateReads.get();
+    }
+
+    /**
+     * @return number of subscriptions served by a state load of other subscription
+     */
+    public long getCoalescedLoads() {
+        return coalescedLoads.get();
+    }
+
     @Override
     public TypeIdSpec getTypeId() {
         return new TypeIdSpec(Host.HOST, getPeerId());
@@ -285,15 +366,9 @@ public final class StorageAdaptor implements Peer, Runnable {
         started.countDown();
         try {
             while (!queueThread.isInterrupted()) {
-                QueuedOperation op = queue.take();
-                if (op == null) continue;
-
-                try {
-                    deliver(op.getSpec(), op.getValue(), op.getPeer());
-                } catch (SwarmException e) {
-                    //TODO fatal exception
-                    logger.warn("Error processing operation: {}", op, e);
-                }
+                queue.drain(queueHandler, Host.DRAIN_LIMIT);
+                // states loaded while processing the batch may be outdated by now
+                loads.clear();
             }
         } catch (InterruptedException e) {
             //ignore
@@ -316,6 +391,50 @@ public final class StorageAdaptor implements Peer, Runnable {
         return storage.getClass().getSimpleName() + "#" + getPeerId();
     }
 
+    /**
+     * Single state load shared by concurrent subscriptions
+     */
+    private static final class StateLoad {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private JsonObject state;
+        private JsonValue versionVector;
+        private SwarmException error;
+
+        void complete(JsonObject state) {
+            if (state != null) {
+                // the same state goes to all the subscribers
+                this.versionVector = stateVersionVector(state);
+                this.state = ImmutableJsonObject.freeze(state);
+            }
+            done.countDown();
+        }
+
+        void fail(SwarmException error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        boolean isFailed() {
+            return error != null;
+        }
+
+        JsonObject await() throws SwarmException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                throw new SwarmException(e.getMessage(), e);
+            }
+            if (error != null) {
+                throw error;
+            }
+            return state;
+        }
+
+        JsonValue getVersionVector() {
+            return versionVector;
+        }
+    }
+
     public void stop() throws SwarmException {
         logger.info("{}.stop()", this);
         synchronized (this) {
@@ -0,0 +1,206 @@
+package citrea.swarm4j.core.callback;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncOpRecipientTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        BlockingListener listener = new BlockingListener(10);
+        AsyncOpRecipient async = new AsyncOpRecipient(listener, executor, 4, AsyncOpRecipient.OverflowPolicy.DROP_OLDEST);
+
+        async.deliver(new FullSpec("/Duck#a!1.set"), JsonValue.valueOf(1), OpRecipient.NOOP);
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        // the listener is blocked, but the caller is not
+        for (int i = 2; i <= 10; i++) {
+            async.deliver(new FullSpec("/Duck#a!" + i + ".set"), JsonValue.valueOf(i), OpRecipient.NOOP);
+        }
+        assertEquals(4, async.getQueueSize());
+        assertEquals(5, async.getDroppedCount());
+
+        listener.release.countDown();
+        assertTrue(listener.done(5));
+        assertEquals(Arrays.asList("!1", "!7", "!8", "!9", "!10"), listener.versions);
+        assertEquals(5, async.getDeliveredCount());
+    }
+
+    @Test
+    public void testKeepLatest() throws Exception {
+        BlockingListener listener = new BlockingListener(4);
+        AsyncOpRecipient async = new AsyncOpRecipient(listener, executor, 2, AsyncOpRecipient.OverflowPolicy.KEEP_LATEST);
+
+        async.deliver(new FullSpec("/Duck#a!1.set"), JsonValue.valueOf(1), OpRecipient.NOOP);
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        async.deliver(new FullSpec("/Duck#b!2.set"), JsonValue.valueOf(2), OpRecipient.NOOP);
+        async.deliver(new FullSpec("/Duck#a!3.set"), JsonValue.valueOf(3), OpRecipient.NOOP);
+        // replaces !3 (same object and operation)
+        async.deliver(new FullSpec("/Duck#a!4.set"), JsonValue.valueOf(4), OpRecipient.NOOP);
+        assertEquals(1, async.getCoalescedCount());
+        assertEquals(0, async.getDroppedCount());
+
+        listener.release.countDown();
+        assertTrue(listener.done(3));
+        assertEquals(Arrays.asList("!1", "!2", "!4"), listener.versions);
+    }
+
+    @Test
+    public void testCoalesceMergesFields() throws Exception {
+        BlockingListener listener = new BlockingListener(3);
+        AsyncOpRecipient async = new AsyncOpRecipient(listener, executor, 2, AsyncOpRecipient.OverflowPolicy.COALESCE);
+
+        async.deliver(new FullSpec("/Duck#a!1.set"), JsonObject.readFrom("{\"age\":1}"), OpRecipient.NOOP);
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        async.deliver(new FullSpec("/Duck#a!2.set"), JsonObject.readFrom("{\"age\":2,\"mood\":\"ok\"}"), OpRecipient.NOOP);
+        async.deliver(new FullSpec("/Duck#b!3.set"), JsonObject.readFrom("{\"age\":3}"), OpRecipient.NOOP);
+        // merged with !2: the age change is not lost
+        async.deliver(new FullSpec("/Duck#a!4.set"), JsonObject.readFrom("{\"height\":4,\"mood\":\"good\"}"), OpRecipient.NOOP);
+        assertEquals(1, async.getCoalescedCount());
+
+        listener.release.countDown();
+        assertTrue(listener.done(3));
+        assertEquals(Arrays.asList("!1", "!3", "!4"), listener.versions);
+        assertEquals("{\"age\":2,\"mood\":\"good\",\"height\":4}", listener.values.get(2).toString());
+    }
+
+    @Test
+    public void testCoalesceWithNewest() throws Exception {
+        BlockingListener listener = new BlockingListener(3);
+        AsyncOpRecipient async = new AsyncOpRecipient(listener, executor, 2, AsyncOpRecipient.OverflowPolicy.COALESCE);
+
+        async.deliver(new FullSpec("/Duck#a!0.set"), JsonObject.readFrom("{\"age\":0}"), OpRecipient.NOOP);
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        async.deliver(new FullSpec("/Duck#a!1.set"), JsonObject.readFrom("{\"age\":1}"), OpRecipient.NOOP);
+        async.deliver(new FullSpec("/Duck#a!2.set"), JsonObject.readFrom("{\"age\":2}"), OpRecipient.NOOP);
+        // merged with !2, not with !1: the latest age wins
+        async.deliver(new FullSpec("/Duck#a!3.set"), JsonObject.readFrom("{\"height\":3}"), OpRecipient.NOOP);
+        assertEquals(1, async.getCoalescedCount());
+
+        listener.release.countDown();
+        assertTrue(listener.done(3));
+        assertEquals(Arrays.asList("!0", "!1", "!3"), listener.versions);
+        assertEquals("{\"age\":2,\"height\":3}", listener.values.get(2).toString());
+    }
+
+    @Test
+    public void testBlockedListenerReported() throws Exception {
+        final List<FullSpec> reported = Collections.synchronizedList(new ArrayList<FullSpec>());
+        BlockingListener listener = new BlockingListener(2);
+        AsyncOpRecipient async = new AsyncOpRecipient(listener, executor, 10, AsyncOpRecipient.OverflowPolicy.DROP_NEWEST);
+        async.setSlowThreshold(20, new AsyncOpRecipient.SlowListenerHandler() {
+            @Override
+            public void onSlowListener(AsyncOpRecipient recipient, FullSpec spec, long latencyMillis) {
+                reported.add(spec);
+            }
+        });
+
+        async.deliver(new FullSpec("/Duck#a!1.set"), JsonValue.valueOf(1), OpRecipient.NOOP);
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        // the listener is still blocked, noticed once the next operation arrives
+        async.deliver(new FullSpec("/Duck#a!2.set"), JsonValue.valueOf(2), OpRecipient.NOOP);
+        assertEquals(Arrays.asList(new FullSpec("/Duck#a!1.set")), reported);
+        assertEquals(1, async.getSlowCount());
+
+        listener.release.countDown();
+        assertTrue(listener.done(2));
+        // reported once
+        assertEquals(1, async.getSlowCount());
+    }
+
+    @Test
+    public void testSlowListener() throws Exception {
+        final List<FullSpec> reported = Collections.synchronizedList(new ArrayList<FullSpec>());
+        final CountDownLatch delivered = new CountDownLatch(2);
+        OpRecipient listener = new OpRecipient() {
+            @Override
+            public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+                if (value.asInt() == 2) {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                delivered.countDown();
+            }
+        };
+        AsyncOpRecipient async = new AsyncOpRecipient(listener, executor, 10, AsyncOpRecipient.OverflowPolicy.DROP_NEWEST);
+        async.setSlowThreshold(20, new AsyncOpRecipient.SlowListenerHandler() {
+            @Override
+            public void onSlowListener(AsyncOpRecipient recipient, FullSpec spec, long latencyMillis) {
+                reported.add(spec);
+            }
+        });
+
+        async.deliver(new FullSpec("/Duck#a!1.set"), JsonValue.valueOf(1), OpRecipient.NOOP);
+        async.deliver(new FullSpec("/Duck#a!2.set"), JsonValue.valueOf(2), OpRecipient.NOOP);
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(1, async.getSlowCount());
+        assertEquals(Arrays.asList(new FullSpec("/Duck#a!2.set")), reported);
+    }
+
+    private static class BlockingListener implements OpRecipient {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done;
+        final List<String> versions = Collections.synchronizedList(new ArrayList<String>());
+        final List<JsonValue> values = Collections.synchronizedList(new ArrayList<JsonValue>());
+
+        BlockingListener(int expected) {
+            this.done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            values.add(value);
+            versions.add(spec.getVersion().toString());
+            done.countDown();
+        }
+
+        boolean done(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (versions.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return versions.size() == count;
+        }
+    }
+}
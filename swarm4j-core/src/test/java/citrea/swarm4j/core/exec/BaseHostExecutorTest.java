@@ -0,0 +1,104 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.Duck;
+import citrea.swarm4j.core.model.Host;
+import citrea.swarm4j.core.model.Model;
+import citrea.swarm4j.core.spec.FullSpec;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public abstract class BaseHostExecutorTest {
+
+    protected static final int DUCKS = 16;
+    private static final int OPS_PER_DUCK = 50;
+
+    protected Host host;
+
+    protected abstract HostExecutor createExecutor();
+
+    @Before
+    public void setUp() throws Exception {
+        host = new Host(new IdToken("#" + getClass().getSimpleName()));
+        host.registerType(Duck.class);
+        host.setExecutor(createExecutor());
+        host.start();
+        host.waitForStart();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        host.stop();
+        host = null;
+    }
+
+    @Test
+    public void testPerObjectOrderIsKept() throws Exception {
+        final List<Duck> ducks = new ArrayList<Duck>();
+        final Map<TypeIdSpec, List<Integer>> received = new ConcurrentHashMap<TypeIdSpec, List<Integer>>();
+        final CountDownLatch done = new CountDownLatch(DUCKS * OPS_PER_DUCK);
+        for (int i = 0; i < DUCKS; i++) {
+            final Duck duck = host.get(Duck.class);
+            final List<Integer> ages = new ArrayList<Integer>();
+            received.put(duck.getTypeId(), ages);
+            duck.on(JsonValue.valueOf(Model.SET.toString()), new OpRecipient() {
+                @Override
+                public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+                    ages.add(value.asObject().get("age").asInt());
+                    done.countDown();
+                }
+            });
+            ducks.add(duck);
+        }
+
+        // one producer per two ducks
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int p = 0; p < DUCKS; p += 2) {
+            final List<Duck> mine = ducks.subList(p, p + 2);
+            producers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int age = 0; age < OPS_PER_DUCK; age++) {
+                            for (Duck duck : mine) {
+                                JsonObject fieldValues = new JsonObject();
+                                fieldValues.set("age", age);
+                                host.deliver(duck.newEventSpec(Model.SET), fieldValues, OpRecipient.NOOP);
+                            }
+                        }
+                    } catch (SwarmException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread t : producers) {
+            t.start();
+        }
+
+        assertTrue("all operations processed", done.await(10, TimeUnit.SECONDS));
+        for (Duck duck : ducks) {
+            List<Integer> ages = received.get(duck.getTypeId());
+            assertEquals(OPS_PER_DUCK, ages.size());
+            for (int age = 0; age < OPS_PER_DUCK; age++) {
+                assertEquals(age, ages.get(age).intValue());
+            }
+            assertEquals(OPS_PER_DUCK - 1, duck.age.intValue());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.Duck;
+import citrea.swarm4j.core.model.Model;
+import com.eclipsesource.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MailboxHostExecutorTest extends BaseHostExecutorTest {
+
+    private MailboxHostExecutor executor;
+
+    @Override
+    protected HostExecutor createExecutor() {
+        executor = new MailboxHostExecutor(3);
+        executor.setThroughput(4);
+        return executor;
+    }
+
+    @Test
+    public void testIdleMailboxesAreDropped() throws Exception {
+        Duck duck = host.get(Duck.class);
+        for (int age = 1; age <= 10; age++) {
+            JsonObject fieldValues = new JsonObject();
+            fieldValues.set("age", age);
+            host.deliver(duck.newEventSpec(Model.SET), fieldValues, OpRecipient.NOOP);
+        }
+        for (int i = 0; i < 100 && executor.getActiveMailboxesCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getActiveMailboxesCount());
+        assertEquals(10, duck.age.intValue());
+    }
+}
@@ -0,0 +1,115 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.Duck;
+import citrea.swarm4j.core.model.Host;
+import citrea.swarm4j.core.model.Model;
+import citrea.swarm4j.core.spec.FullSpec;
+import citrea.swarm4j.core.spec.IdToken;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Host throughput (operations per second) depending on shards count.
+ * Not a unit test: run main() manually, e.g.
+ * <code>java -cp ... citrea.swarm4j.core.exec.ShardedHostExecutorBenchmark [objects] [opsPerObject]</code>
+ *
+ * Shards count "0" stands for the default single-threaded Host.
+ */
+public class ShardedHostExecutorBenchmark {
+
+    private static final int[] SHARDS = new int[] {0, 1, 2, 4, 8};
+    private static final int PRODUCERS = 4;
+
+    public static void main(String[] args) throws Exception {
+        int objects = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int opsPerObject = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors() +
+                ", objects: " + objects + ", ops per object: " + opsPerObject);
+        // warm up
+        run(4, objects, opsPerObject);
+        for (int shards : SHARDS) {
+            double opsPerSec = run(shards, objects, opsPerObject);
+            System.out.println(String.format("shards: %d\t%,.0f ops/s", shards, opsPerSec));
+        }
+    }
+
+    private static double run(int shards, int objects, int opsPerObject) throws Exception {
+        final Host host = new Host(new IdToken("#bench" + shards));
+        host.registerType(Duck.class);
+        if (shards > 0) {
+            host.setExecutor(new ShardedHostExecutor(shards));
+        } else {
+            host.setAsync(true);
+        }
+        host.start();
+        host.waitForStart();
+
+        final CountDownLatch done = new CountDownLatch(objects * opsPerObject);
+        OpRecipient counter = new OpRecipient() {
+            @Override
+            public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+                done.countDown();
+            }
+        };
+        List<Duck> ducks = new ArrayList<Duck>(objects);
+        for (int i = 0; i < objects; i++) {
+            Duck duck = host.get(Duck.class);
+            duck.on(JsonValue.valueOf(Model.SET.toString()), counter);
+            ducks.add(duck);
+        }
+
+        // prepare operations beforehand so only processing is measured
+        final List<List<FullSpec>> specs = new ArrayList<List<FullSpec>>(PRODUCERS);
+        final List<List<JsonObject>> values = new ArrayList<List<JsonObject>>(PRODUCERS);
+        for (int p = 0; p < PRODUCERS; p++) {
+            specs.add(new ArrayList<FullSpec>());
+            values.add(new ArrayList<JsonObject>());
+        }
+        for (int op = 0; op < opsPerObject; op++) {
+            for (int i = 0; i < objects; i++) {
+                JsonObject fieldValues = new JsonObject();
+                fieldValues.set("age", op);
+                // every object is fed by the single producer to keep ops order
+                specs.get(i % PRODUCERS).add(ducks.get(i).newEventSpec(Model.SET));
+                values.get(i % PRODUCERS).add(fieldValues);
+            }
+        }
+
+        List<Thread> producers = new ArrayList<Thread>(PRODUCERS);
+        for (int p = 0; p < PRODUCERS; p++) {
+            final List<FullSpec> mySpecs = specs.get(p);
+            final List<JsonObject> myValues = values.get(p);
+            producers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < mySpecs.size(); i++) {
+                            host.deliver(mySpecs.get(i), myValues.get(i), OpRecipient.NOOP);
+                        }
+                    } catch (SwarmException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+
+        long started = System.nanoTime();
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        if (!done.await(5, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("timeout");
+        }
+        long elapsed = System.nanoTime() - started;
+        host.stop();
+
+        return objects * opsPerObject / (elapsed / 1e9);
+    }
+}
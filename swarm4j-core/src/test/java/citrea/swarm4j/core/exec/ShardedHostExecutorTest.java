@@ -0,0 +1,25 @@
+package citrea.swarm4j.core.exec;
+
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ShardedHostExecutorTest extends BaseHostExecutorTest {
+
+    private static final int SHARDS = 4;
+
+    @Override
+    protected HostExecutor createExecutor() {
+        return new ShardedHostExecutor(SHARDS);
+    }
+
+    @Test
+    public void testShardOfIsStable() throws Exception {
+        ShardedHostExecutor executor = new ShardedHostExecutor(SHARDS);
+        TypeIdSpec spec = new TypeIdSpec("/Duck#huey");
+        int shard = executor.shardOf(spec);
+        assertTrue(shard >= 0 && shard < SHARDS);
+        assertEquals(shard, executor.shardOf(new TypeIdSpec("/Duck#huey")));
+    }
+}
@@ -0,0 +1,121 @@
+package citrea.swarm4j.core.hash;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class HashRingTest {
+
+    private static final int KEYS = 1000;
+
+    @Test
+    public void testEmptyRing() {
+        HashRing<String> ring = new HashRing<String>(new HashMap<String, String>(), new SimpleHash(), 3);
+        assertTrue(ring.isEmpty());
+        assertNull(ring.get("key"));
+    }
+
+    @Test
+    public void testFilterWalksToNextNode() {
+        Map<String, String> nodes = new HashMap<String, String>();
+        nodes.put("swarm~a", "a");
+        nodes.put("swarm~b", "b");
+        HashRing<String> ring = new HashRing<String>(nodes, new SimpleHash(), 3);
+        HashRing.Filter<String> notA = new HashRing.Filter<String>() {
+            @Override
+            public boolean accept(String node) {
+                return !"a".equals(node);
+            }
+        };
+        HashRing.Filter<String> none = new HashRing.Filter<String>() {
+            @Override
+            public boolean accept(String node) {
+                return false;
+            }
+        };
+        for (int i = 0; i < KEYS; i++) {
+            String key = "obj" + i;
+            assertEquals("b", ring.get(key, notA));
+            // falls back to the owner
+            assertEquals(ring.get(key), ring.get(key, none));
+        }
+    }
+
+    @Test
+    public void testWeights() {
+        Map<String, String> nodes = new HashMap<String, String>();
+        nodes.put("swarm~a", "a");
+        nodes.put("swarm~b", "b");
+        Map<String, Integer> weights = new HashMap<String, Integer>();
+        weights.put("swarm~b", 3);
+        HashRing<String> ring = new HashRing<String>(nodes, weights, new SimpleHash(), 32);
+        assertEquals(4, ring.getTotalWeight());
+
+        int b = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if ("b".equals(ring.get("obj" + i))) {
+                b++;
+            }
+        }
+        assertTrue("b owns: " + b, b > KEYS / 2);
+    }
+
+    @Test
+    public void testAddedNodeTakesKeysOnlyFromOthers() {
+        HashFunction fn = new MurMurHash3();
+        Map<String, String> nodes = new HashMap<String, String>();
+        nodes.put("swarm~a", "a");
+        nodes.put("swarm~b", "b");
+        nodes.put("swarm~c", "c");
+        HashRing<String> before = new HashRing<String>(nodes, fn, 64);
+        nodes.put("swarm~d", "d");
+        HashRing<String> after = new HashRing<String>(nodes, fn, 64);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "obj" + i;
+            String was = before.get(key);
+            String now = after.get(key);
+            if (!was.equals(now)) {
+                assertEquals("d", now);
+                moved++;
+            }
+        }
+        // roughly a quarter of keys should move to the new node
+        assertTrue("moved: " + moved, moved > KEYS / 8 && moved < KEYS / 2);
+    }
+
+    @Test
+    public void testArcsOfAddedNode() {
+        HashFunction fn = new MurMurHash3();
+        Map<String, String> nodes = new HashMap<String, String>();
+        nodes.put("swarm~a", "a");
+        nodes.put("swarm~b", "b");
+        HashRing<String> ring = new HashRing<String>(nodes, fn, 16);
+        nodes.put("swarm~c", "c");
+        HashRing<String> after = new HashRing<String>(nodes, fn, 16);
+
+        List<int[]> arcs = after.getArcs("swarm~c");
+        assertFalse(arcs.isEmpty());
+        for (int i = 0; i < KEYS; i++) {
+            String key = "obj" + i;
+            int position = after.positionOf(key);
+            boolean inArcs = false;
+            for (int[] arc : arcs) {
+                if (arc[0] < arc[1] ? position > arc[0] && position <= arc[1] : position > arc[0] || position <= arc[1]) {
+                    inArcs = true;
+                }
+            }
+            // keys change their owner within the arcs only
+            assertEquals(key, inArcs, "c".equals(after.get(key)));
+            if (!inArcs) {
+                assertEquals(ring.get(key), after.get(key));
+            }
+        }
+        assertTrue(after.getArcs("swarm~unknown").isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpFilter;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.value.ImmutableJsonObject;
+import citrea.swarm4j.core.spec.FullSpec;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.SToken;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures bytes allocated per operation by Syncable.emit() alone (expected to be 0)
+ * and by the whole delivery of a logged operation with a frozen payload through Host.deliver()
+ * (the operation is logged, the version vector is updated, so it is not 0).
+ * Not a unit test: run main() manually, e.g.
+ * <code>java -cp ... citrea.swarm4j.core.model.EmitAllocationBenchmark [listeners] [ops] [delivered ops]</code>
+ * with debug logging off (test logback.xml enables trace for citrea.swarm4j).
+ *
+ * Requires HotSpot (com.sun.management.ThreadMXBean).
+ */
+public class EmitAllocationBenchmark {
+
+    private static long received = 0L;
+
+    public static void main(String[] args) throws Exception {
+        int listeners = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int deliveredOps = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+
+        Host host = new Host(new IdToken("#swarm~emit"));
+        host.registerType(Duck.class);
+        host.start();
+        host.waitForStart();
+        try {
+            Duck duck = host.get(Duck.class);
+            OpRecipient counter = new OpRecipient() {
+                @Override
+                public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+                    received++;
+                }
+            };
+            // a few listeners get every operation, most of them filter other operations
+            for (int i = 0; i < listeners; i++) {
+                OpRecipient listener = new CountingRecipient(counter);
+                if (i % 10 == 0) {
+                    duck.addListener(listener);
+                } else {
+                    duck.addListener(new OpFilter(listener, i % 10 == 1 ? Model.SET : Syncable.REON));
+                }
+            }
+
+            FullSpec spec = duck.newEventSpec(Model.SET);
+            JsonObject value = new JsonObject();
+            value.set("age", 1);
+            // frozen once, as Host and Pipe do
+            JsonValue frozen = ImmutableJsonObject.freeze(value);
+
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            // warm up
+            for (int i = 0; i < ops; i++) {
+                duck.emit(spec, frozen, OpRecipient.NOOP);
+            }
+
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long started = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                duck.emit(spec, frozen, OpRecipient.NOOP);
+            }
+            long elapsed = System.nanoTime() - started;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            System.out.println(String.format("listeners: %d, ops: %d, received: %,d", listeners, ops, received));
+            System.out.println(String.format("emit:\t%.3f bytes/op\t%,.0f ops/s", (double) allocated / ops, ops / (elapsed / 1e9)));
+
+            // every delivered operation needs a new version (the host clock is limited to 4000 ops/s,
+            // so versions are generated), specs are created before measuring
+            FullSpec[] specs = new FullSpec[2 * deliveredOps];
+            for (int i = 0; i < specs.length; i++) {
+                specs[i] = new FullSpec(duck.getTypeId().toString() + "!~" + SToken.int2base(i, 5) + "+bench" + Model.SET);
+            }
+            // warm up
+            for (int i = 0; i < deliveredOps; i++) {
+                host.deliver(specs[i], frozen, OpRecipient.NOOP);
+            }
+
+            bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            started = System.nanoTime();
+            for (int i = deliveredOps; i < specs.length; i++) {
+                host.deliver(specs[i], frozen, OpRecipient.NOOP);
+            }
+            elapsed = System.nanoTime() - started;
+            allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            System.out.println(String.format("delivered ops: %d, version: %s", deliveredOps, duck.version));
+            System.out.println(String.format("deliver:\t%.3f bytes/op\t%,.0f ops/s", (double) allocated / deliveredOps, deliveredOps / (elapsed / 1e9)));
+        } finally {
+            host.stop();
+        }
+    }
+
+    private static class CountingRecipient implements OpRecipient {
+        private final OpRecipient inner;
+
+        CountingRecipient(OpRecipient inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+            inner.deliver(spec, value, source);
+        }
+    }
+}
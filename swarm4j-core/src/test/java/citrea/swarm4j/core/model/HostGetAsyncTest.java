@@ -0,0 +1,115 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import citrea.swarm4j.core.storage.InMemoryStorage;
+import citrea.swarm4j.core.storage.StorageAdaptor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HostGetAsyncTest {
+
+    private static final int THREADS = 4;
+    private static final int OBJECTS = 200;
+
+    private Host host;
+
+    @Before
+    public void setUp() throws Exception {
+        StorageAdaptor storageAdaptor = new StorageAdaptor(new IdToken("#storage"), new InMemoryStorage());
+        host = new Host(new IdToken("#swarm~async"), storageAdaptor);
+        host.registerType(Duck.class);
+        host.setAsync(true);
+        host.start();
+        host.waitForStart();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        host.stop();
+        host = null;
+    }
+
+    @Test
+    public void testParallelFanOut() throws Exception {
+        final List<List<SyncableFuture<Duck>>> futures = new ArrayList<List<SyncableFuture<Duck>>>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final List<SyncableFuture<Duck>> threadFutures = new ArrayList<SyncableFuture<Duck>>();
+            futures.add(threadFutures);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < OBJECTS; i++) {
+                            SyncableFuture<Duck> future = host.getAsync(new TypeIdSpec("/Duck#duck" + i));
+                            threadFutures.add(future);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < OBJECTS; i++) {
+            Duck duck = futures.get(0).get(i).get(10, TimeUnit.SECONDS);
+            assertNotNull(duck);
+            assertFalse(duck.hasNoState());
+            // all the threads got the same replica
+            for (int t = 1; t < THREADS; t++) {
+                assertSame(duck, futures.get(t).get(i).get(10, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(OBJECTS, host.getResidentCount());
+    }
+
+    @Test
+    public void testCallback() throws Exception {
+        final CountDownLatch ready = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger(0);
+        SyncableFuture<Duck> future = host.getAsync(new TypeIdSpec("/Duck#callback"));
+        future.addCallback(new SyncableFuture.Callback<Duck>() {
+            @Override
+            public void onReady(Duck obj) {
+                ready.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                errors.incrementAndGet();
+            }
+        });
+        assertTrue(ready.await(10, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+        assertEquals(0, errors.get());
+    }
+
+    @Test
+    public void testUnknownType() throws Exception {
+        SyncableFuture<Syncable> future = host.getAsync(new TypeIdSpec("/Unknown#x"));
+        assertTrue(future.isDone());
+        try {
+            future.get();
+            fail("exception expected");
+        } catch (ExecutionException e) {
+            // expected
+        }
+    }
+}
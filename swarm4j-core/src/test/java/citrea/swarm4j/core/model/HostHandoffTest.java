@@ -0,0 +1,78 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.pipe.LoopbackConnection;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import com.eclipsesource.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HostHandoffTest {
+
+    private static final int OBJECTS = 5;
+
+    private Host old;
+    private Host successor;
+
+    @Before
+    public void setUp() throws Exception {
+        // no storage: the state lives in memory only
+        old = new Host(new IdToken("#swarm~old"));
+        old.registerType(Duck.class);
+        old.start();
+        old.waitForStart();
+
+        successor = new Host(new IdToken("#swarm~new"));
+        successor.registerType(Duck.class);
+        successor.setAsync(true);
+        successor.start();
+        successor.waitForStart();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        old.stop();
+        successor.stop();
+    }
+
+    @Test
+    public void testHandoff() throws Exception {
+        List<TypeIdSpec> ducks = new ArrayList<TypeIdSpec>();
+        for (int i = 0; i < OBJECTS; i++) {
+            Duck duck = old.get(Duck.class);
+            setAge(duck, i);
+            setAge(duck, i + 10);
+            ducks.add(duck.getTypeId());
+        }
+
+        LoopbackConnection connection = new LoopbackConnection(successor);
+        connection.connect();
+        StateHandoff handoff = old.handoff(connection);
+        assertTrue(handoff.await(10, TimeUnit.SECONDS));
+        assertEquals(OBJECTS, handoff.getSentCount());
+
+        for (int i = 0; i < OBJECTS; i++) {
+            // handed off state is queued before the subscription
+            SyncableFuture<Duck> future = successor.getAsync(ducks.get(i));
+            Duck duck = future.get(10, TimeUnit.SECONDS);
+            assertEquals(i + 10, duck.age.intValue());
+        }
+        // the handoff connection is closed
+        assertTrue(successor.getSources(ducks.get(0)).isEmpty());
+    }
+
+    private void setAge(Duck duck, int age) throws SwarmException {
+        JsonObject fieldValues = new JsonObject();
+        fieldValues.set("age", age);
+        old.deliver(duck.newEventSpec(Model.SET), fieldValues, OpRecipient.NOOP);
+    }
+}
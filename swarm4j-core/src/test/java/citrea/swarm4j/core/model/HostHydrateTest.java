@@ -0,0 +1,83 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import citrea.swarm4j.core.spec.VersionVectorSpec;
+import com.eclipsesource.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class HostHydrateTest {
+
+    private static final int OBJECTS = 100;
+
+    private Host source;
+    private Host host;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        source = new Host(new IdToken("#swarm~source"));
+        source.registerType(Duck.class);
+        source.start();
+        source.waitForStart();
+
+        host = new Host(new IdToken("#swarm~hydrated"));
+        host.registerType(Duck.class);
+        host.start();
+        host.waitForStart();
+
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        source.stop();
+        host.stop();
+    }
+
+    @Test
+    public void testHydrate() throws Exception {
+        Map<TypeIdSpec, JsonObject> states = new LinkedHashMap<TypeIdSpec, JsonObject>();
+        for (int i = 0; i < OBJECTS; i++) {
+            Duck duck = source.get(Duck.class);
+            setAge(duck, i);
+            setAge(duck, i + 1);
+            states.put(duck.getTypeId(), duck.diff(VersionVectorSpec.ZERO_VERSION_VECTOR));
+        }
+        // replica created before hydration (no uplinks, so it has no state)
+        TypeIdSpec first = states.keySet().iterator().next();
+        Duck existing = host.get(first);
+        assertTrue(existing.hasNoState());
+
+        assertEquals(OBJECTS, host.hydrate(states, executor));
+        assertEquals(OBJECTS, host.getResidentCount());
+        assertSame(existing, host.get(first));
+        int i = 0;
+        for (TypeIdSpec spec : states.keySet()) {
+            Duck duck = host.get(spec);
+            assertEquals(i + 1, duck.age.intValue());
+            i++;
+        }
+
+        // nothing to do second time
+        assertEquals(0, host.hydrate(states, executor));
+    }
+
+    private void setAge(Duck duck, int age) throws SwarmException {
+        JsonObject fieldValues = new JsonObject();
+        fieldValues.set("age", age);
+        source.deliver(duck.newEventSpec(Model.SET), fieldValues, OpRecipient.NOOP);
+    }
+}
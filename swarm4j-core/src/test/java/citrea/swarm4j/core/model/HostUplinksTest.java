@@ -0,0 +1,144 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.callback.Peer;
+import citrea.swarm4j.core.spec.FullSpec;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import citrea.swarm4j.core.storage.InMemoryStorage;
+import citrea.swarm4j.core.storage.StorageAdaptor;
+import com.eclipsesource.json.JsonValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class HostUplinksTest {
+
+    private static final int OBJECTS = 300;
+
+    private Host host;
+
+    @Before
+    public void setUp() throws Exception {
+        StorageAdaptor storageAdaptor = new StorageAdaptor(new IdToken("#storage"), new InMemoryStorage());
+        host = new Host(new IdToken("#swarm~a"), storageAdaptor);
+        host.registerType(Duck.class);
+        host.setHashPoints(16);
+    }
+
+    private void startHost() throws Exception {
+        host.start();
+        host.waitForStart();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        host.stop();
+        host = null;
+    }
+
+    @Test
+    public void testWeightedServers() throws Exception {
+        host.setServerWeight(new IdToken("#swarm~b"), 4);
+        startHost();
+        connect("#swarm~b");
+        connect("#swarm~c");
+        createDucks();
+
+        Map<String, Integer> loads = host.getServerLoads();
+        assertEquals(3, loads.size());
+        assertEquals(OBJECTS, loads.get("swarm~a") + loads.get("swarm~b") + loads.get("swarm~c"));
+        assertTrue(loads.toString(), loads.get("swarm~b") > loads.get("swarm~a"));
+        assertTrue(loads.toString(), loads.get("swarm~b") > loads.get("swarm~c"));
+    }
+
+    @Test
+    public void testBoundedLoad() throws Exception {
+        host.setServerWeight(new IdToken("#swarm~b"), 4);
+        host.setLoadBound(0.1);
+        startHost();
+        connect("#swarm~b");
+        connect("#swarm~c");
+        createDucks();
+
+        Map<String, Integer> loads = host.getServerLoads();
+        int max = (int) Math.ceil(1.1 * OBJECTS * 4 / 6);
+        assertEquals(OBJECTS, loads.get("swarm~a") + loads.get("swarm~b") + loads.get("swarm~c"));
+        assertTrue(loads.toString(), loads.get("swarm~b") <= max);
+        assertTrue(loads.toString(), loads.get("swarm~a") <= Math.ceil(1.1 * OBJECTS / 6));
+        assertTrue(loads.toString(), loads.get("swarm~c") <= Math.ceil(1.1 * OBJECTS / 6));
+    }
+
+    @Test
+    public void testConnectResubscribesTakenOver() throws Exception {
+        startHost();
+        createDucks();
+        connect("#swarm~b");
+        connect("#swarm~c");
+
+        Map<String, Integer> loads = host.getServerLoads();
+        assertTrue(loads.toString(), loads.get("swarm~b") > 0 && loads.get("swarm~c") > 0);
+        // every replica is subscribed to its closest server
+        for (int i = 0; i < OBJECTS; i++) {
+            TypeIdSpec spec = new TypeIdSpec("/Duck#duck" + i);
+            Syncable duck = host.get(spec);
+            Object closest = host.getClosestUplink(spec);
+            if (closest instanceof Peer) {
+                assertTrue(spec.toString(), host.subscriptions.contains((Peer) closest, duck));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRingSettingsFixedOnStart() throws Exception {
+        startHost();
+        // the ring is maintained by the host's thread
+        host.setServerWeight(new IdToken("#swarm~b"), 2);
+    }
+
+    private void createDucks() throws SwarmException {
+        for (int i = 0; i < OBJECTS; i++) {
+            host.get(new TypeIdSpec("/Duck#duck" + i));
+        }
+    }
+
+    private void connect(String id) throws SwarmException {
+        FakeServer server = new FakeServer(new IdToken(id));
+        host.addSource(new FullSpec(server.getTypeId(), host.time(), Syncable.REON), server);
+    }
+
+    /**
+     * remote server which never responds
+     */
+    private static class FakeServer implements Peer {
+        private IdToken id;
+
+        FakeServer(IdToken id) {
+            this.id = id;
+        }
+
+        @Override
+        public void setPeerId(IdToken id) {
+            this.id = id;
+        }
+
+        @Override
+        public IdToken getPeerId() {
+            return id;
+        }
+
+        @Override
+        public TypeIdSpec getTypeId() {
+            return new TypeIdSpec(Host.HOST, id);
+        }
+
+        @Override
+        public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+        }
+    }
+}
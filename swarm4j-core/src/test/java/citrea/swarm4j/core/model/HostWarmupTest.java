@@ -0,0 +1,147 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import citrea.swarm4j.core.storage.HotObject;
+import citrea.swarm4j.core.storage.HotObjectsStore;
+import citrea.swarm4j.core.storage.InMemoryHotObjectsStore;
+import citrea.swarm4j.core.storage.InMemoryStorage;
+import citrea.swarm4j.core.storage.StorageAdaptor;
+import com.eclipsesource.json.JsonObject;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HostWarmupTest {
+
+    private final InMemoryStorage storage = new InMemoryStorage();
+    private final InMemoryHotObjectsStore hotObjects = new InMemoryHotObjectsStore();
+
+    @Test
+    public void testPreloadMostAccessed() throws Exception {
+        Host host = newHost(true, false);
+        for (int i = 0; i < 4; i++) {
+            Duck duck = host.get(new TypeIdSpec("/Duck#duck" + i));
+            setAge(host, duck, i);
+            // duck3 is the most popular one
+            for (int j = 0; j < i * 3; j++) {
+                host.get(new TypeIdSpec("/Duck#duck" + i));
+            }
+        }
+        host.stop();
+
+        List<HotObject> saved = hotObjects.read();
+        assertEquals(2, saved.size());
+        assertEquals(new TypeIdSpec("/Duck#duck3"), saved.get(0).getTypeId());
+        assertEquals(new TypeIdSpec("/Duck#duck2"), saved.get(1).getTypeId());
+        assertNull(saved.get(0).getSnapshot());
+
+        Host restarted = newHost(true, false);
+        try {
+            waitForPreload(restarted, 2);
+            assertEquals(2, restarted.getResidentCount());
+            Duck duck = restarted.get(new TypeIdSpec("/Duck#duck3"));
+            assertEquals(3, duck.age.intValue());
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    public void testPreloadSnapshots() throws Exception {
+        Host host = newHost(true, true);
+        Duck duck = host.get(new TypeIdSpec("/Duck#snapshot"));
+        setAge(host, duck, 5);
+        host.stop();
+        assertNotNull(hotObjects.read().get(0).getSnapshot());
+
+        // no storage: the state comes from the snapshot only
+        Host restarted = newHost(false, true);
+        try {
+            waitForPreload(restarted, 1);
+            Duck preloaded = restarted.get(new TypeIdSpec("/Duck#snapshot"));
+            assertFalse(preloaded.hasNoState());
+            assertEquals(5, preloaded.age.intValue());
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    public void testStopDuringPreload() throws Exception {
+        Host host = newHost(true, false);
+        Duck duck = host.get(new TypeIdSpec("/Duck#saved"));
+        setAge(host, duck, 1);
+        host.stop();
+        List<HotObject> saved = hotObjects.read();
+        assertEquals(1, saved.size());
+
+        final CountDownLatch reading = new CountDownLatch(1);
+        HotObjectsStore slowStore = new HotObjectsStore() {
+            @Override
+            public void write(List<HotObject> objects) throws SwarmException {
+                hotObjects.write(objects);
+            }
+
+            @Override
+            public List<HotObject> read() throws SwarmException {
+                reading.countDown();
+                try {
+                    Thread.sleep(10000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return hotObjects.read();
+            }
+        };
+        Host restarted = new Host(new IdToken("#swarm~warm"), new StorageAdaptor(new IdToken("#storage"), storage));
+        restarted.registerType(Duck.class);
+        restarted.setWarmup(slowStore, 2, false);
+        restarted.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        restarted.get(new TypeIdSpec("/Duck#other"));
+        restarted.stop();
+
+        // the preload thread is stopped, the stored list is not overwritten by a partial one
+        assertFalse(restarted.isPreloadCompleted());
+        assertSame(saved, hotObjects.read());
+    }
+
+    private Host newHost(boolean withStorage, boolean snapshots) throws Exception {
+        Host host;
+        if (withStorage) {
+            host = new Host(new IdToken("#swarm~warm"), new StorageAdaptor(new IdToken("#storage"), storage));
+        } else {
+            host = new Host(new IdToken("#swarm~warm"));
+        }
+        host.registerType(Duck.class);
+        host.setWarmup(hotObjects, 2, snapshots);
+        host.start();
+        host.waitForStart();
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (!host.isPreloadCompleted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1L);
+        }
+        return host;
+    }
+
+    private void waitForPreload(Host host, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (host.getPreloadedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertEquals(count, host.getPreloadedCount());
+    }
+
+    private void setAge(Host host, Duck duck, int age) throws SwarmException {
+        JsonObject fieldValues = new JsonObject();
+        fieldValues.set("age", age);
+        host.deliver(duck.newEventSpec(Model.SET), fieldValues, OpRecipient.NOOP);
+    }
+}
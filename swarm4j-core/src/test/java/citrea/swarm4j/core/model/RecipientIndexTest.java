@@ -0,0 +1,42 @@
+package citrea.swarm4j.core.model;
+
+import citrea.swarm4j.core.callback.OpFilter;
+import citrea.swarm4j.core.callback.OpRecipient;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RecipientIndexTest {
+
+    @Test
+    public void testIndexByOp() throws Exception {
+        OpRecipient uplink = new RememberingRecipient();
+        OpRecipient listener = new RememberingRecipient();
+        OpFilter onSet = new OpFilter(new RememberingRecipient(), Model.SET);
+        OpFilter onReon = new OpFilter(new RememberingRecipient(), Syncable.REON);
+
+        RecipientIndex index = RecipientIndex.build(
+                Collections.singletonList(uplink),
+                Arrays.asList(listener, onSet, null, onReon)
+        );
+        assertArrayEquals(new OpRecipient[] {uplink, listener}, index.getAll());
+        assertArrayEquals(new OpRecipient[] {onSet}, index.getFiltered(Model.SET));
+        assertArrayEquals(new OpRecipient[] {onReon}, index.getFiltered(Syncable.REON));
+        assertEquals(0, index.getFiltered(Syncable.INIT).length);
+
+        OpFilter onSet2 = new OpFilter(new RememberingRecipient(), Model.SET);
+        RecipientIndex added = index.with(onSet2);
+        assertArrayEquals(new OpRecipient[] {onSet, onSet2}, added.getFiltered(Model.SET));
+        // snapshots are immutable
+        assertArrayEquals(new OpRecipient[] {onSet}, index.getFiltered(Model.SET));
+        assertSame(index.getAll(), added.getAll());
+
+        RecipientIndex removed = added.without(onSet).without(listener).without(onReon);
+        assertArrayEquals(new OpRecipient[] {uplink}, removed.getAll());
+        assertArrayEquals(new OpRecipient[] {onSet2}, removed.getFiltered(Model.SET));
+        assertEquals(0, removed.getFiltered(Syncable.REON).length);
+    }
+}
@@ -2,6 +2,8 @@ package citrea.swarm4j.core.model;
 
 import citrea.swarm4j.core.SwarmException;
 import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.exec.ShardedHostExecutor;
+import citrea.swarm4j.core.pipe.Pipe;
 import citrea.swarm4j.core.spec.*;
 
 import citrea.swarm4j.core.storage.InMemoryStorage;
@@ -16,6 +18,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -433,4 +439,291 @@ public class SyncableTest {
         assertEquals(Syncable.ON, oplist.get(0).spec.getOp());
         */
     }
+
+    @Test
+    public void test3a_batch_subscriptions() throws Exception {
+        logger.info("3.a subscription changes inside a batch");
+        Host batchHost = new Host(new IdToken("#batch"));
+        batchHost.registerType(Duck.class);
+        batchHost.setAsync(true);
+        batchHost.setBatchSize(64);
+        batchHost.start();
+        batchHost.waitForStart();
+        try {
+            final Duck blocker = batchHost.get(Duck.class);
+            final Duck duck = batchHost.get(Duck.class);
+
+            // hold host thread, so all the following operations get into a single batch
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(1);
+            blocker.on(JsonValue.valueOf(Model.SET.toString()), new OpRecipient() {
+                @Override
+                public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+                    if (value.asObject().get("age").asInt() == 1) {
+                        blocked.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new SwarmException(e.getMessage(), e);
+                        }
+                    } else {
+                        done.countDown();
+                    }
+                }
+            });
+            setAge(batchHost, blocker, 1);
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+            final List<Integer> ages = Collections.synchronizedList(new ArrayList<Integer>());
+            OpRecipient listener = new OpRecipient() {
+                @Override
+                public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+                    ages.add(value.asObject().get("age").asInt());
+                }
+            };
+            setAge(batchHost, duck, 1);
+            setAge(batchHost, duck, 2);
+            batchHost.deliver(duck.newEventSpec(SubscriptionAware.ON), JsonValue.valueOf(Model.SET.toString()), listener);
+            setAge(batchHost, duck, 3);
+            setAge(batchHost, duck, 4);
+            batchHost.deliver(duck.newEventSpec(SubscriptionAware.OFF), JsonValue.NULL, listener);
+            setAge(batchHost, duck, 5);
+            setAge(batchHost, blocker, 2);
+            release.countDown();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(5, duck.age.intValue());
+            assertEquals(Arrays.asList(3, 4), ages);
+        } finally {
+            batchHost.stop();
+        }
+    }
+
+    @Test
+    public void test3b_eviction_budget() throws Exception {
+        logger.info("3.b resident objects budget");
+        final int objects = 10;
+        for (int i = 0; i < objects; i++) {
+            Duck duck = host.get(new TypeIdSpec("/Duck#duck" + i));
+            setAge(host, duck, i);
+        }
+        // listened object is never evicted
+        Duck listened = host.get(new TypeIdSpec("/Duck#duck0"));
+        listened.on(JsonObject.readFrom("{}"), OpRecipient.NOOP);
+        assertEquals(objects, host.getResidentCount());
+
+        host.setEviction(0L, 3);
+        assertEquals(objects - 3, host.evictIdle());
+        assertEquals(3, host.getResidentCount());
+        assertEquals(objects - 3, host.getEvictedCount());
+        assertSame(listened, host.get(new TypeIdSpec("/Duck#duck0")));
+
+        // evicted objects are loaded from the storage again
+        for (int i = 0; i < objects; i++) {
+            Duck duck = host.get(new TypeIdSpec("/Duck#duck" + i));
+            assertEquals(i, duck.age.intValue());
+        }
+    }
+
+    @Test
+    public void test3c_eviction_idle_time() throws Exception {
+        logger.info("3.c idle objects eviction");
+        Duck duck = host.get(new TypeIdSpec("/Duck#idle"));
+        setAge(host, duck, 7);
+
+        host.setEviction(60000L, 0);
+        assertEquals(0, host.evictIdle());
+
+        duck.lastAccessTime -= 60000L;
+        assertEquals(1, host.evictIdle());
+        assertEquals(0, host.getResidentCount());
+
+        Duck reloaded = host.get(new TypeIdSpec("/Duck#idle"));
+        assertNotSame(duck, reloaded);
+        assertEquals(7, reloaded.age.intValue());
+    }
+
+    @Test
+    public void test3d_eviction_idle_executor_host() throws Exception {
+        logger.info("3.d idle objects eviction by idle host");
+        // nobody calls evictIdle() and no operations arrive: housekeeping evicts anyway
+        StorageAdaptor storageAdaptor = new StorageAdaptor(new IdToken("#storage2"), new InMemoryStorage());
+        Host idle = new Host(new IdToken("#swarm~idle"), storageAdaptor);
+        idle.registerType(Duck.class);
+        idle.setExecutor(new ShardedHostExecutor(2));
+        idle.start();
+        idle.waitForStart();
+        try {
+            Duck duck = idle.get(new TypeIdSpec("/Duck#idle"));
+            setAge(idle, duck, 1);
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (duck.age == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            duck.lastAccessTime -= 60000L;
+            idle.setEviction(60000L, 0);
+
+            deadline = System.currentTimeMillis() + 10 * Host.EVICTION_INTERVAL;
+            while (idle.getResidentCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, idle.getResidentCount());
+            assertEquals(1, idle.getEvictedCount());
+        } finally {
+            idle.stop();
+        }
+    }
+
+    @Test
+    public void test3e_diff_cache() throws Exception {
+        logger.info("3.e cached diffs");
+        Duck duck = host.get(Duck.class);
+        setAge(host, duck, 1);
+        // the storage may have asked for diffs already
+        long misses = duck.diffCache.getMisses();
+        long hits = duck.diffCache.getHits();
+
+        JsonObject diff = duck.diff(VersionVectorSpec.ZERO_VERSION_VECTOR);
+        // the same normalized base
+        assertSame(diff, duck.diff(new VersionVectorSpec("")));
+        assertEquals(misses + 1, duck.diffCache.getMisses());
+        assertEquals(hits + 1, duck.diffCache.getHits());
+
+        String json = duck.getSerializedDiff(diff);
+        assertEquals(diff.toString(), json);
+        assertSame(json, duck.getSerializedDiff(diff));
+        FullSpec spec = duck.newEventSpec(Syncable.INIT);
+        assertEquals(Pipe.serialize(spec, diff), Pipe.serialize(spec, json));
+
+        // a new operation invalidates the cache
+        setAge(host, duck, 2);
+        assertNull(duck.getSerializedDiff(diff));
+        JsonObject newDiff = duck.diff(VersionVectorSpec.ZERO_VERSION_VECTOR);
+        assertNotSame(diff, newDiff);
+        assertEquals(misses + 2, duck.diffCache.getMisses());
+    }
+
+    @Test
+    public void test3f_consistent_snapshots() throws Exception {
+        logger.info("3.f consistent state snapshots");
+        final int ops = 2000;
+        final Duck duck = host.get(Duck.class);
+
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<String> inconsistency = new AtomicReference<String>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!done.get()) {
+                        StateSnapshot snapshot = duck.getSnapshot();
+                        if (snapshot == null) continue;
+                        // both fields are changed by a single operation
+                        if (!snapshot.get("age").equals(snapshot.get("height"))) {
+                            inconsistency.set(snapshot.toString());
+                        }
+                    }
+                } catch (SwarmException e) {
+                    inconsistency.set(e.getMessage());
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < ops; i++) {
+            JsonObject fieldValues = new JsonObject();
+            fieldValues.set("age", i);
+            fieldValues.set("height", i);
+            host.deliver(duck.newEventSpec(Model.SET), fieldValues, OpRecipient.NOOP);
+        }
+        done.set(true);
+        reader.join();
+        assertNull(inconsistency.get());
+
+        StateSnapshot snapshot = duck.getSnapshot();
+        assertEquals(ops - 1, snapshot.get("age").asInt());
+        assertEquals("neutral", snapshot.get("mood").asString());
+        assertEquals(duck.version, snapshot.getVersion());
+        assertEquals(duck.getPOJO(false), snapshot.toJson());
+        // taken once per change
+        assertSame(snapshot, duck.getSnapshot());
+    }
+
+    @Test
+    public void test3g_apply_batch() throws Exception {
+        logger.info("3.g operations batch");
+        Duck duck = host.get(Duck.class);
+        RememberingRecipient listener = new RememberingRecipient();
+        duck.on(JsonValue.valueOf(""), listener);
+        int notifications = listener.getMemory().size();
+
+        SortedMap<VersionOpSpec, JsonValue> ops = new TreeMap<VersionOpSpec, JsonValue>(Spec.ORDER_NATURAL);
+        for (int i = 1; i <= 5; i++) {
+            JsonObject fieldValues = new JsonObject();
+            fieldValues.set("age", i);
+            ops.put(new VersionOpSpec("!0000" + i + "+offline.set"), fieldValues);
+        }
+
+        assertEquals(5, duck.applyBatch(ops, OpRecipient.NOOP));
+        assertEquals(5, duck.age.intValue());
+        assertEquals("!00005+offline", duck.version);
+        assertEquals(5, duck.getSnapshot().get("age").asInt());
+        // a single combined notification
+        assertEquals(notifications + 1, listener.getMemory().size());
+        RememberingRecipient.Triplet init = listener.getMemory().get(notifications);
+        assertEquals(Syncable.INIT, init.spec.getOp());
+        assertEquals(duck.diff(VersionVectorSpec.ZERO_VERSION_VECTOR), init.value);
+
+        // replays are skipped
+        assertEquals(0, duck.applyBatch(ops, OpRecipient.NOOP));
+        assertEquals(notifications + 1, listener.getMemory().size());
+    }
+
+    @Test
+    public void test3h_eviction_concurrent_delivery() throws Exception {
+        logger.info("3.h eviction concurrent with delivery");
+        StorageAdaptor storageAdaptor = new StorageAdaptor(new IdToken("#storage3"), new InMemoryStorage());
+        Host asyncHost = new Host(new IdToken("#swarm~race"), storageAdaptor);
+        asyncHost.registerType(Duck.class);
+        asyncHost.setAsync(true);
+        asyncHost.start();
+        asyncHost.waitForStart();
+        try {
+            Duck duck = asyncHost.get(new TypeIdSpec("/Duck#race"));
+            asyncHost.get(new TypeIdSpec("/Duck#other"));
+            setAge(asyncHost, duck, 1);
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (duck.age == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            synchronized (duck) {
+                // host thread looks the replica up and waits for its monitor...
+                setAge(asyncHost, duck, 2);
+                Thread.sleep(100);
+                // ...while the replica is evicted (the other one is accessed later)
+                asyncHost.get(new TypeIdSpec("/Duck#other"));
+                asyncHost.setEviction(0L, 1);
+                assertEquals(1, asyncHost.evictIdle());
+            }
+
+            // the operation goes to the registered replica (and the storage), not to the evicted one
+            Duck reloaded = asyncHost.get(new TypeIdSpec("/Duck#race"));
+            deadline = System.currentTimeMillis() + 5000L;
+            while ((reloaded.age == null || reloaded.age != 2) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertNotSame(duck, reloaded);
+            assertEquals(2, reloaded.age.intValue());
+            assertEquals(1, duck.age.intValue());
+        } finally {
+            asyncHost.stop();
+        }
+    }
+
+    private static void setAge(Host host, Duck duck, int age) throws SwarmException {
+        JsonObject fieldValues = new JsonObject();
+        fieldValues.set("age", age);
+        host.deliver(duck.newEventSpec(Model.SET), fieldValues, OpRecipient.NOOP);
+    }
 }
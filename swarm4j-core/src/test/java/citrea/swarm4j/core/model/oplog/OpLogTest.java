@@ -0,0 +1,65 @@
+package citrea.swarm4j.core.model.oplog;
+
+import citrea.swarm4j.core.spec.CompactVersionVector;
+import citrea.swarm4j.core.spec.VersionOpSpec;
+import com.eclipsesource.json.JsonValue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpLogTest {
+
+    @Test
+    public void testTail() throws Exception {
+        OpLog oplog = new OpLog();
+        for (String spec : new String[] {"!1+a.set", "!2+a.set", "!21+a.set", "!3+a.set", "!1+b.set", "!2+b.set", "!1.set"}) {
+            oplog.put(new VersionOpSpec(spec), JsonValue.TRUE);
+        }
+
+        assertEquals(Arrays.asList("!2+b.set", "!21+a.set", "!3+a.set"),
+                specs(oplog.tail(new CompactVersionVector("!2+a!1+b!1"))));
+        assertEquals(Collections.<String>emptyList(),
+                specs(oplog.tail(new CompactVersionVector("!3+a!2+b!1"))));
+        // unknown processes are not covered at all
+        assertEquals(Arrays.asList("!1+a.set", "!1+b.set", "!1.set", "!2+a.set", "!2+b.set", "!21+a.set", "!3+a.set"),
+                specs(oplog.tail(new CompactVersionVector("!0"))));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        OpLog oplog = new OpLog();
+        oplog.put(new VersionOpSpec("!1+a.set"), JsonValue.TRUE);
+        oplog.put(new VersionOpSpec("!2+a.set"), JsonValue.TRUE);
+        oplog.put(new VersionOpSpec("!3+a.set"), JsonValue.TRUE);
+
+        oplog.remove(new VersionOpSpec("!3+a.set"));
+        Iterator<Map.Entry<VersionOpSpec, JsonValue>> it = oplog.entrySet().iterator();
+        while (it.hasNext()) {
+            if ("!1+a.set".equals(it.next().getKey().toString())) {
+                it.remove();
+            }
+        }
+        assertEquals(1, oplog.size());
+        assertEquals(Arrays.asList("!2+a.set"), specs(oplog.tail(new CompactVersionVector("!0"))));
+
+        oplog.clear();
+        assertTrue(oplog.tail(new CompactVersionVector("!0")).isEmpty());
+    }
+
+    private static List<String> specs(List<VersionOpSpec> tail) {
+        List<String> res = new ArrayList<String>(tail.size());
+        for (VersionOpSpec spec : tail) {
+            res.add(spec.toString());
+        }
+        Collections.sort(res);
+        return res;
+    }
+}
@@ -0,0 +1,88 @@
+package citrea.swarm4j.core.model.value;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ImmutableJsonObjectTest {
+
+    @Test
+    public void testFreeze() throws Exception {
+        JsonObject value = JsonObject.readFrom("{\"a\":1,\"b\":{\"c\":[{\"d\":true}]}}");
+        ImmutableJsonObject frozen = ImmutableJsonObject.freeze(value);
+        assertEquals(value.toString(), frozen.toString());
+        assertEquals(value.hashCode(), frozen.hashCode());
+        // equality is symmetric: frozen values equal frozen ones only
+        assertFalse(frozen.equals(value));
+        assertFalse(value.equals(frozen));
+        assertEquals(frozen, ImmutableJsonObject.freeze(JsonObject.readFrom(value.toString())));
+        assertEquals(value, ImmutableJsonObject.thaw(frozen));
+        // frozen once
+        assertSame(frozen, ImmutableJsonObject.freeze(frozen));
+        assertSame(frozen, ImmutableJsonObject.freeze((JsonValue) frozen));
+
+        try {
+            frozen.set("a", 2);
+            fail("modified");
+        } catch (UnsupportedOperationException e) {
+            // ok
+        }
+        try {
+            frozen.get("b").asObject().remove("c");
+            fail("nested object modified");
+        } catch (UnsupportedOperationException e) {
+            // ok
+        }
+        try {
+            frozen.get("b").asObject().get("c").asArray().add(1);
+            fail("nested array modified");
+        } catch (UnsupportedOperationException e) {
+            // ok
+        }
+        // the source stays independent
+        value.set("a", 2);
+        assertEquals(1, frozen.get("a").asInt());
+    }
+
+    @Test
+    public void testWithWithout() throws Exception {
+        ImmutableJsonObject frozen = ImmutableJsonObject.freeze(JsonObject.readFrom("{\"a\":1,\"b\":{\"c\":2}}"));
+
+        ImmutableJsonObject withA = frozen.with("a", JsonValue.valueOf(3));
+        assertEquals("{\"a\":3,\"b\":{\"c\":2}}", withA.toString());
+        // nested values are shared
+        assertSame(frozen.get("b"), withA.get("b"));
+
+        ImmutableJsonObject withoutA = frozen.without(Collections.singleton("a"));
+        assertEquals("{\"b\":{\"c\":2}}", withoutA.toString());
+        assertSame(frozen.get("b"), withoutA.get("b"));
+        assertEquals("{\"a\":1,\"b\":{\"c\":2}}", frozen.toString());
+    }
+
+    @Test
+    public void testArray() throws Exception {
+        JsonValue frozen = ImmutableJsonObject.freeze(JsonArray.readFrom("[1,{\"a\":[2]}]"));
+        assertTrue(frozen instanceof ImmutableJsonArray);
+        // frozen once
+        assertSame(frozen, ImmutableJsonObject.freeze(frozen));
+        assertEquals("[1,{\"a\":[2]}]", frozen.toString());
+        assertEquals(JsonArray.readFrom("[1,{\"a\":[2]}]"), ImmutableJsonObject.thaw(frozen));
+        try {
+            frozen.asArray().add(3);
+            fail("modified");
+        } catch (UnsupportedOperationException e) {
+            // ok
+        }
+        try {
+            frozen.asArray().get(1).asObject().get("a").asArray().set(0, 3);
+            fail("nested array modified");
+        } catch (UnsupportedOperationException e) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.callback.Peer;
+import citrea.swarm4j.core.model.Host;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import com.eclipsesource.json.JsonValue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FairOpQueueTest {
+
+    private static class Collector implements OpQueue.Handler {
+        final List<String> specs = new ArrayList<String>();
+
+        @Override
+        public void handle(QueuedOperation op) {
+            specs.add(op.getSpec().toString());
+        }
+    }
+
+    @Test
+    public void testChattySourceDoesNotStarveOthers() throws Exception {
+        FairOpQueue queue = new FairOpQueue(4);
+        FakePeer chatty = new FakePeer("#chatty");
+        FakePeer quiet = new FakePeer("#quiet");
+        for (int i = 0; i < 100; i++) {
+            queue.put(new FullSpec("/Duck#a!" + i + ".set"), JsonValue.NULL, chatty);
+        }
+        queue.put(new FullSpec("/Duck#b!1.set"), JsonValue.NULL, quiet);
+        queue.put(new FullSpec("/Duck#b!2.set"), JsonValue.NULL, quiet);
+
+        List<FairOpQueue.SourceStats> stats = queue.getSourceStats();
+        assertEquals(2, stats.size());
+        assertSame(chatty, stats.get(0).getSource());
+        assertEquals(100, stats.get(0).getDepth());
+        assertEquals(2, stats.get(1).getDepth());
+
+        Collector collector = new Collector();
+        assertEquals(8, queue.drain(collector, 8));
+        assertEquals(Arrays.asList(
+                "/Duck#a!0.set",
+                "/Duck#a!1.set",
+                "/Duck#a!2.set",
+                "/Duck#a!3.set",
+                "/Duck#b!1.set",
+                "/Duck#b!2.set",
+                "/Duck#a!4.set",
+                "/Duck#a!5.set"
+        ), collector.specs);
+        assertEquals(94, queue.size());
+
+        // the quiet lane is drained and forgotten
+        stats = queue.getSourceStats();
+        assertEquals(1, stats.size());
+        assertEquals(94, stats.get(0).getDepth());
+        assertEquals(6, stats.get(0).getServedOps());
+    }
+
+    @Test
+    public void testOrderWithinSource() throws Exception {
+        FairOpQueue queue = new FairOpQueue(3);
+        FakePeer peer = new FakePeer("#peer");
+        for (int i = 0; i < 10; i++) {
+            queue.put(new FullSpec("/Duck#a!" + i + ".set"), JsonValue.NULL, i % 2 == 0 ? peer : OpRecipient.NOOP);
+        }
+
+        Collector collector = new Collector();
+        int count = 0;
+        while (count < 10) {
+            count += queue.drain(collector, 2);
+        }
+        assertEquals(0, queue.size());
+        List<String> fromPeer = new ArrayList<String>();
+        List<String> local = new ArrayList<String>();
+        for (String spec : collector.specs) {
+            int n = Integer.parseInt(spec.substring(spec.indexOf('!') + 1, spec.indexOf(".set")));
+            (n % 2 == 0 ? fromPeer : local).add(spec);
+        }
+        assertEquals(Arrays.asList("/Duck#a!0.set", "/Duck#a!2.set", "/Duck#a!4.set", "/Duck#a!6.set", "/Duck#a!8.set"), fromPeer);
+        assertEquals(Arrays.asList("/Duck#a!1.set", "/Duck#a!3.set", "/Duck#a!5.set", "/Duck#a!7.set", "/Duck#a!9.set"), local);
+    }
+
+    private static class FakePeer implements Peer {
+        private IdToken id;
+
+        FakePeer(String id) {
+            this.id = new IdToken(id);
+        }
+
+        @Override
+        public void setPeerId(IdToken id) {
+            this.id = id;
+        }
+
+        @Override
+        public IdToken getPeerId() {
+            return id;
+        }
+
+        @Override
+        public TypeIdSpec getTypeId() {
+            return new TypeIdSpec(Host.HOST, id);
+        }
+
+        @Override
+        public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares throughput of operation queues (several producers, one consumer).
+ * Not a unit test: run main() manually, e.g.
+ * <code>java -cp ... citrea.swarm4j.core.queue.OpQueueBenchmark [producers] [opsPerProducer]</code>
+ */
+public class OpQueueBenchmark {
+
+    private static final FullSpec SPEC = new FullSpec("/Duck#hueyA!0.set");
+    private static final JsonValue VALUE = JsonValue.valueOf(1);
+    private static final int CAPACITY = 1 << 14;
+
+    private interface QueueFactory {
+        OpQueue create();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int opsPerProducer = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors() +
+                ", producers: " + producers + ", ops per producer: " + opsPerProducer);
+
+        String[] names = new String[] {"linked", "ring/spin", "ring/yield", "ring/park"};
+        QueueFactory[] factories = new QueueFactory[] {
+                new QueueFactory() {
+                    @Override
+                    public OpQueue create() {
+                        return new LinkedOpQueue();
+                    }
+                },
+                new QueueFactory() {
+                    @Override
+                    public OpQueue create() {
+                        return new RingBufferOpQueue(CAPACITY, new BusySpinWaitStrategy());
+                    }
+                },
+                new QueueFactory() {
+                    @Override
+                    public OpQueue create() {
+                        return new RingBufferOpQueue(CAPACITY, new YieldingWaitStrategy());
+                    }
+                },
+                new QueueFactory() {
+                    @Override
+                    public OpQueue create() {
+                        return new RingBufferOpQueue(CAPACITY, new ParkingWaitStrategy());
+                    }
+                }
+        };
+
+        // warm up
+        for (QueueFactory factory : factories) {
+            run(factory.create(), producers, opsPerProducer / 10);
+        }
+        for (int i = 0; i < factories.length; i++) {
+            double opsPerSec = run(factories[i].create(), producers, opsPerProducer);
+            System.out.println(String.format("%s\t%,.0f ops/s", names[i], opsPerSec));
+        }
+    }
+
+    private static double run(final OpQueue queue, int producers, final int opsPerProducer) throws Exception {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < opsPerProducer; i++) {
+                            queue.put(SPEC, VALUE, OpRecipient.NOOP);
+                        }
+                    } catch (InterruptedException e) {
+                        // finish
+                    }
+                }
+            }));
+        }
+        OpQueue.Handler handler = new OpQueue.Handler() {
+            @Override
+            public void handle(QueuedOperation op) {
+                // consume only
+            }
+        };
+
+        long total = (long) producers * opsPerProducer;
+        long startedAt = System.nanoTime();
+        for (Thread t : threads) {
+            t.start();
+        }
+        long handled = 0;
+        while (handled < total) {
+            handled += queue.drain(handler, 1024);
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        for (Thread t : threads) {
+            t.join();
+        }
+        return total * 1e9 / elapsed;
+    }
+}
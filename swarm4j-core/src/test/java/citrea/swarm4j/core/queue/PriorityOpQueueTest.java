@@ -0,0 +1,70 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PriorityOpQueueTest {
+
+    private static class Collector implements OpQueue.Handler {
+        final List<String> specs = new ArrayList<String>();
+
+        @Override
+        public void handle(QueuedOperation op) {
+            specs.add(op.getSpec().toString());
+        }
+    }
+
+    @Test
+    public void testControlOperations() {
+        assertTrue(PriorityOpQueue.isControlOperation(new FullSpec("/Host#swarm~0!1.on")));
+        assertTrue(PriorityOpQueue.isControlOperation(new FullSpec("/Duck#hueyA!1.reon")));
+        assertTrue(PriorityOpQueue.isControlOperation(new FullSpec("/Duck#hueyA!1.init")));
+        assertFalse(PriorityOpQueue.isControlOperation(new FullSpec("/Duck#hueyA!1.set")));
+    }
+
+    @Test
+    public void testControlFirst() throws Exception {
+        PriorityOpQueue queue = new PriorityOpQueue();
+        put(queue, "/Duck#hueyA!1.set");
+        put(queue, "/Duck#hueyA!2.set");
+        put(queue, "/Duck#hueyB!3.on");
+        put(queue, "/Host#swarm~0!4.reon");
+        assertEquals(4, queue.size());
+
+        Collector collector = new Collector();
+        assertEquals(4, queue.drain(collector, 10));
+        assertEquals(Arrays.asList(
+                "/Duck#hueyB!3.on",
+                "/Host#swarm~0!4.reon",
+                "/Duck#hueyA!1.set",
+                "/Duck#hueyA!2.set"
+        ), collector.specs);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testDataIsNotStarved() throws Exception {
+        PriorityOpQueue queue = new PriorityOpQueue(2);
+        put(queue, "/Duck#hueyA!1.set");
+        for (int i = 2; i < 7; i++) {
+            put(queue, "/Duck#hueyB!" + i + ".on");
+        }
+
+        Collector collector = new Collector();
+        assertEquals(6, queue.drain(collector, 10));
+        assertEquals("/Duck#hueyA!1.set", collector.specs.get(2));
+    }
+
+    private static void put(OpQueue queue, String spec) throws InterruptedException {
+        queue.put(new FullSpec(spec), JsonValue.NULL, OpRecipient.NOOP);
+    }
+}
@@ -0,0 +1,103 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RingBufferOpQueueTest {
+
+    private static final FullSpec SPEC = new FullSpec("/Duck#hueyA!0.set");
+
+    private static class Collector implements OpQueue.Handler {
+        final List<Integer> values = new ArrayList<Integer>();
+
+        @Override
+        public void handle(QueuedOperation op) {
+            values.add(op.getValue().asInt());
+        }
+    }
+
+    @Test
+    public void testCapacityIsPowerOf2() {
+        try {
+            new RingBufferOpQueue(6, new BusySpinWaitStrategy());
+            fail("capacity 6 accepted");
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+        assertEquals(8, new RingBufferOpQueue(8, new BusySpinWaitStrategy()).getCapacity());
+    }
+
+    @Test
+    public void testOrderAndWrapAround() throws Exception {
+        RingBufferOpQueue queue = new RingBufferOpQueue(4, new BusySpinWaitStrategy());
+        Collector collector = new Collector();
+        int next = 0;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 3; i++) {
+                queue.put(SPEC, JsonValue.valueOf(next++), OpRecipient.NOOP);
+            }
+            assertEquals(3, queue.size());
+            assertEquals(2, queue.drain(collector, 2));
+            assertEquals(1, queue.drain(collector, 10));
+            assertEquals(0, queue.size());
+        }
+        assertEquals(15, collector.values.size());
+        for (int i = 0; i < 15; i++) {
+            assertEquals(i, collector.values.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testPerProducerOrder() throws Exception {
+        final int producers = 4;
+        final int opsPerProducer = 5000;
+        final RingBufferOpQueue queue = new RingBufferOpQueue(64, new YieldingWaitStrategy());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < opsPerProducer; i++) {
+                            queue.put(SPEC, JsonValue.valueOf(producer * opsPerProducer + i), OpRecipient.NOOP);
+                        }
+                    } catch (InterruptedException e) {
+                        // finish
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        Collector collector = new Collector();
+        int total = 0;
+        while (total < producers * opsPerProducer) {
+            total += queue.drain(collector, 100);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(producers * opsPerProducer, collector.values.size());
+        int[] last = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            last[p] = -1;
+        }
+        for (Integer v : collector.values) {
+            int producer = v / opsPerProducer;
+            int seq = v % opsPerProducer;
+            assertEquals(last[producer] + 1, seq);
+            last[producer] = seq;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package citrea.swarm4j.core.queue;
+
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.QueuedOperation;
+import citrea.swarm4j.core.spec.FullSpec;
+import com.eclipsesource.json.JsonValue;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WatermarkOpQueueTest {
+
+    private static final FullSpec SPEC = new FullSpec("/Duck#hueyA!0.set");
+
+    private static final OpQueue.Handler NOOP_HANDLER = new OpQueue.Handler() {
+        @Override
+        public void handle(QueuedOperation op) {
+        }
+    };
+
+    @Test
+    public void testPauseAndResume() throws Exception {
+        final WatermarkOpQueue queue = new WatermarkOpQueue(new LinkedOpQueue(), 4, 1);
+        for (int i = 0; i < 3; i++) {
+            queue.put(SPEC, JsonValue.valueOf(i), OpRecipient.NOOP);
+        }
+        assertFalse(queue.isPaused());
+        queue.put(SPEC, JsonValue.valueOf(3), OpRecipient.NOOP);
+        assertTrue(queue.isPaused());
+        assertEquals(1, queue.getPauseCount());
+
+        final CountDownLatch resumed = new CountDownLatch(1);
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queue.awaitCapacity();
+                    resumed.countDown();
+                } catch (InterruptedException e) {
+                    // finish
+                }
+            }
+        });
+        reader.start();
+        assertFalse(resumed.await(100, TimeUnit.MILLISECONDS));
+
+        // still above the low watermark
+        assertEquals(2, queue.drain(NOOP_HANDLER, 2));
+        assertTrue(queue.isPaused());
+        assertFalse(resumed.await(50, TimeUnit.MILLISECONDS));
+
+        assertEquals(1, queue.drain(NOOP_HANDLER, 1));
+        assertFalse(queue.isPaused());
+        assertTrue(resumed.await(1, TimeUnit.SECONDS));
+        assertEquals(1, queue.size());
+        assertTrue(queue.getPausedTimeMillis() >= 100);
+        reader.join();
+    }
+
+    @Test
+    public void testProcessingThreadIsNeverPaused() throws Exception {
+        WatermarkOpQueue queue = new WatermarkOpQueue(new LinkedOpQueue(), 2, 0);
+        queue.put(SPEC, JsonValue.valueOf(0), OpRecipient.NOOP);
+        // marks current thread as the consumer one
+        queue.drain(NOOP_HANDLER, 1);
+        queue.put(SPEC, JsonValue.valueOf(1), OpRecipient.NOOP);
+        queue.put(SPEC, JsonValue.valueOf(2), OpRecipient.NOOP);
+        assertTrue(queue.isPaused());
+        queue.awaitCapacity();
+    }
+
+    @Test
+    public void testExternalAccounting() throws Exception {
+        // operations submitted to an executor instead of the inner queue
+        WatermarkOpQueue queue = new WatermarkOpQueue(new LinkedOpQueue(), 2, 0);
+        queue.acquire();
+        queue.acquire();
+        assertTrue(queue.isPaused());
+        assertEquals(2, queue.size());
+        queue.release(1);
+        assertTrue(queue.isPaused());
+        queue.release(1);
+        assertFalse(queue.isPaused());
+    }
+
+    @Test
+    public void testCloseReleasesWaiting() throws Exception {
+        final WatermarkOpQueue queue = new WatermarkOpQueue(new LinkedOpQueue(), 1, 0);
+        queue.put(SPEC, JsonValue.valueOf(0), OpRecipient.NOOP);
+        assertTrue(queue.isPaused());
+
+        final CountDownLatch released = new CountDownLatch(1);
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queue.awaitCapacity();
+                    released.countDown();
+                } catch (InterruptedException e) {
+                    // finish
+                }
+            }
+        });
+        reader.start();
+        assertFalse(released.await(50, TimeUnit.MILLISECONDS));
+
+        // the consumer is stopped, nobody is going to drain the queue
+        queue.close();
+        assertTrue(released.await(1, TimeUnit.SECONDS));
+        queue.put(SPEC, JsonValue.valueOf(1), OpRecipient.NOOP);
+        assertFalse(queue.isPaused());
+        reader.join();
+    }
+}
@@ -0,0 +1,61 @@
+package citrea.swarm4j.core.spec;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactVersionVectorTest {
+
+    private static final String VECTOR = "!7AM0f+gritzko!0longago+krdkv!7AMTc+aleksisha!0ld!00ld";
+
+    @Test
+    public void testAdd() throws Exception {
+        CompactVersionVector vector = new CompactVersionVector("!ver1+s1!ver2+s2!ver3+s1");
+        assertEquals("!ver3+s1!ver2+s2", vector.toString());
+        vector.add(new VersionToken("!ver0+s2"));
+        vector.add(new VersionToken("!ver4+s3"));
+        assertEquals("!ver4+s3!ver3+s1!ver2+s2", vector.toString());
+        assertEquals(3, vector.size());
+    }
+
+    @Test
+    public void testCovers() throws Exception {
+        CompactVersionVector vector = new CompactVersionVector(VECTOR);
+
+        assertTrue(vector.covers(new VersionToken("!7AM0f+gritzko")));
+        assertFalse(vector.covers(new VersionToken("!7AMTd+aleksisha")));
+        assertFalse(vector.covers(new VersionToken("!6AMTd+maxmaxmax")));
+        assertTrue(vector.covers(new VersionToken("!0ld")));
+        assertFalse(vector.covers(new VersionToken("!0le")));
+        // prefix is less
+        assertTrue(vector.covers(new VersionToken("!7AM+gritzko")));
+        assertFalse(vector.covers(new VersionToken("!7AM0f0+gritzko")));
+    }
+
+    @Test
+    public void testLongTimestamps() throws Exception {
+        // too long to be packed, compared as strings
+        CompactVersionVector vector = new CompactVersionVector("!7AM0f00000001+src");
+        assertTrue(vector.covers(new VersionToken("!7AM0f+src")));
+        assertTrue(vector.covers(new VersionToken("!7AM0f00000001+src")));
+        assertFalse(vector.covers(new VersionToken("!7AM0f00000002+src")));
+        vector.add(new VersionToken("!7AM0g+src"));
+        assertEquals("7AM0g", vector.get("src"));
+    }
+
+    @Test
+    public void testSameAsVersionVector() throws Exception {
+        CompactVersionVector vector = new CompactVersionVector(VECTOR);
+        VersionVector map = new VersionVector(VECTOR);
+
+        assertEquals(map.toString(), vector.toString());
+        assertEquals(map.toString(10, "6"), vector.toString(10, "6"));
+        assertEquals(map.toString(1, "6"), vector.toString(1, "6"));
+        assertEquals(map.get(SToken.NO_AUTHOR), vector.get(SToken.NO_AUTHOR));
+
+        vector.clear();
+        assertEquals(SToken.ZERO_VERSION.toString(), vector.toString());
+    }
+}
@@ -0,0 +1,141 @@
+package citrea.swarm4j.core.storage;
+
+import citrea.swarm4j.core.SwarmException;
+import citrea.swarm4j.core.callback.OpRecipient;
+import citrea.swarm4j.core.model.Syncable;
+import citrea.swarm4j.core.spec.FullSpec;
+import citrea.swarm4j.core.spec.IdToken;
+import citrea.swarm4j.core.spec.TypeIdSpec;
+import citrea.swarm4j.core.spec.VersionToken;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StorageAdaptorTest {
+
+    private static final int SUBSCRIBERS = 8;
+    private static final TypeIdSpec BLOCKER = new TypeIdSpec("/Duck#blocker");
+    private static final TypeIdSpec POPULAR = new TypeIdSpec("/Duck#popular");
+
+    private final SlowStorage storage = new SlowStorage();
+    private StorageAdaptor adaptor;
+
+    @After
+    public void tearDown() throws Exception {
+        storage.release.countDown();
+        adaptor.stop();
+    }
+
+    @Test
+    public void testConcurrentLoadsCoalesced() throws Exception {
+        adaptor = new StorageAdaptor(new IdToken("#storage"), storage);
+        adaptor.start();
+        storage.slow = POPULAR;
+
+        final List<JsonValue> states = Collections.synchronizedList(new ArrayList<JsonValue>());
+        final CountDownLatch done = new CountDownLatch(SUBSCRIBERS);
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        adaptor.deliver(onSpec(POPULAR), JsonValue.NULL, new StateRecipient(states));
+                    } catch (SwarmException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        assertTrue(storage.reading.await(10, TimeUnit.SECONDS));
+        waitForCoalesced(SUBSCRIBERS - 1);
+        storage.release.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, adaptor.getStateReads());
+        assertEquals(SUBSCRIBERS, states.size());
+        for (JsonValue state : states) {
+            assertSame(states.get(0), state);
+        }
+    }
+
+    @Test
+    public void testQueuedLoadsCoalesced() throws Exception {
+        adaptor = new StorageAdaptor(new IdToken("#storage"), storage);
+        adaptor.setAsync(true);
+        adaptor.start();
+        adaptor.waitForStart();
+        storage.slow = BLOCKER;
+
+        final List<JsonValue> states = Collections.synchronizedList(new ArrayList<JsonValue>());
+        // hold the storage thread, so the following subscriptions get into a single batch
+        adaptor.deliver(onSpec(BLOCKER), JsonValue.NULL, OpRecipient.NOOP);
+        assertTrue(storage.reading.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            adaptor.deliver(onSpec(POPULAR), JsonValue.NULL, new StateRecipient(states));
+        }
+        storage.release.countDown();
+
+        waitForCoalesced(SUBSCRIBERS - 1);
+        assertEquals(2, adaptor.getStateReads());
+    }
+
+    private void waitForCoalesced(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (adaptor.getCoalescedLoads() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertEquals(count, adaptor.getCoalescedLoads());
+    }
+
+    private static FullSpec onSpec(TypeIdSpec ti) {
+        return ti.fullSpec(new VersionToken("!" + ti.getId().getBare() + "+client"), Syncable.ON);
+    }
+
+    private static class StateRecipient implements OpRecipient {
+        private final List<JsonValue> states;
+
+        StateRecipient(List<JsonValue> states) {
+            this.states = states;
+        }
+
+        @Override
+        public void deliver(FullSpec spec, JsonValue value, OpRecipient source) throws SwarmException {
+            if (Syncable.INIT.equals(spec.getOp())) {
+                states.add(value);
+            }
+        }
+    }
+
+    /**
+     * storage blocking on reading state of the given object
+     */
+    private static class SlowStorage extends InMemoryStorage {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile TypeIdSpec slow;
+
+        @Override
+        public JsonObject readState(TypeIdSpec ti) throws SwarmException {
+            if (ti.equals(slow)) {
+                reading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new SwarmException(e.getMessage(), e);
+                }
+            }
+            return super.readState(ti);
+        }
+    }
+}
@@ -146,6 +146,26 @@ public abstract class OnOffBaseTest extends BaseClientServerTest {
         Assert.assertEquals("reconnected 10 times", 10, counter.get());
     }
 
+    @Test
+    public void test3d_resubscription_through_index() throws SwarmException, InterruptedException {
+        logger.info("3.d resubscription of affected objects only");
+        Thermometer thermometer = client.get(Thermometer.class);
+        Thread.sleep(100);
+
+        Uplink uplink = client.getSources(thermometer.getTypeId()).get(0);
+        Assert.assertTrue(uplink instanceof Pipe);
+        Assert.assertEquals(1, client.getSubscriptionsCount((Pipe) uplink));
+
+        ((Pipe) uplink).getChannel().close();
+        Thread.sleep(200);
+
+        Assert.assertEquals(0, client.getSubscriptionsCount((Pipe) uplink));
+        Uplink reconnected = client.getSources(thermometer.getTypeId()).get(0);
+        Assert.assertTrue(reconnected instanceof Pipe);
+        Assert.assertNotSame(uplink, reconnected);
+        Assert.assertEquals(1, client.getSubscriptionsCount((Pipe) reconnected));
+    }
+
     // TODO disconnection events
     @Test
     @Ignore